@@ -0,0 +1,88 @@
+package de.vetemi.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data and helpers of the benchmarks. The translation file lines and source
+ * words are generated by the CorpusGenerator, so the same size always gives
+ * the same data.
+ *
+ * @author Valmir Etemi
+ */
+public class BenchmarkData {
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Generates lines of the translation file
+	 *
+	 * @param lineCount
+	 *            number of lines
+	 * @return the lines: German, English and word class, separated by tabs
+	 */
+	public static List<String> dictionaryLines(int lineCount) {
+		CorpusGenerator generator = new CorpusGenerator(CorpusGenerator.DEFAULT_SEED);
+		List<String> lines = new ArrayList<String>(lineCount);
+		for (int i = 0; i < lineCount; i++) {
+			lines.add(generator.nextDictionaryLine());
+		}
+		return lines;
+	}
+
+	/**
+	 * Generates source words, the same as the word source of the generated
+	 * resources
+	 *
+	 * @param wordCount
+	 *            number of words
+	 * @return the words, may contain duplicates
+	 */
+	public static List<String> sourceWords(int wordCount) {
+		CorpusGenerator generator = new CorpusGenerator(CorpusGenerator.DEFAULT_SEED + 1);
+		List<String> words = new ArrayList<String>(wordCount);
+		for (int i = 0; i < wordCount; i++) {
+			words.add(generator.nextSourceWord());
+		}
+		return words;
+	}
+
+	/**
+	 * Deletes the directory with all its files
+	 *
+	 * @param directory
+	 *            the directory
+	 */
+	public static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				delete(file);
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Stream which discards everything, used to mute the progress output of
+	 * the workflow while measuring
+	 *
+	 * @return the stream
+	 */
+	public static PrintStream discardingStream() {
+		return new PrintStream(new OutputStream() {
+
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+	}
+}
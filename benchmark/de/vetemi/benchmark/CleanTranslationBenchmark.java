@@ -0,0 +1,126 @@
+package de.vetemi.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.vetemi.wordprocessing.DictCodeWordProcessor;
+
+/**
+ * Compares the single pass cleaning of translations with the former regex
+ * based cleaning. Cleans both columns of the lines of a dict.cc translation
+ * file; if the file is not available, generated dict.cc lines are used.
+ *
+ * @author Valmir Etemi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CleanTranslationBenchmark {
+
+	/**
+	 * The former cleaning rules of DictCodeWordProcessor
+	 */
+	private static final List<String> REMOVE_REGEX_RULES = Arrays.asList("\\[.*\\]", "\\(.*\\)", "\\<.*\\>",
+			"\\{.*\\}", "/", "sth.", "sb.", "the ");
+
+	/**
+	 * Path of the dict.cc translation file
+	 */
+	@Param("resource/GermanEnglishTranslations.txt")
+	public String translationFile;
+
+	/**
+	 * Maximum number of lines read from the translation file
+	 */
+	@Param({ "10000", "100000" })
+	public int maxLines;
+
+	private String[] texts;
+
+	private DictCodeWordProcessor wordProcessor;
+
+	@Setup
+	public void setUp() throws IOException {
+		wordProcessor = new DictCodeWordProcessor();
+		List<String> columns = new ArrayList<String>();
+		File file = new File(translationFile);
+		if (file.exists()) {
+			BufferedReader bReader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(file), "UTF-8"));
+			try {
+				String line;
+				while ((line = bReader.readLine()) != null && columns.size() < maxLines * 2) {
+					addColumns(line, columns);
+				}
+			} finally {
+				bReader.close();
+			}
+		}
+		if (columns.isEmpty()) {
+			for (String line : BenchmarkData.dictionaryLines(maxLines)) {
+				addColumns(line, columns);
+			}
+		}
+		texts = columns.toArray(new String[columns.size()]);
+		System.out.println("Cleaning " + texts.length + " texts");
+	}
+
+	private void addColumns(String line, List<String> columns) {
+		if (line.startsWith("#")) {
+			return;
+		}
+		String[] values = line.split("\t");
+		if (values.length >= 2) {
+			columns.add(values[0]);
+			columns.add(values[1]);
+		}
+	}
+
+	@Benchmark
+	public void regexCleaning(Blackhole blackhole) {
+		for (String text : texts) {
+			blackhole.consume(cleanWithRegex(text));
+		}
+	}
+
+	@Benchmark
+	public void singlePassCleaning(Blackhole blackhole) {
+		for (String text : texts) {
+			blackhole.consume(wordProcessor.cleanTranslation(text));
+		}
+	}
+
+	/**
+	 * The former DictCodeWordProcessor.cleanTranslation
+	 */
+	private static String cleanWithRegex(String sourceWord) {
+		String wordToClean = sourceWord.toLowerCase();
+		for (String rule : REMOVE_REGEX_RULES) {
+			wordToClean = wordToClean.replaceAll(rule, "");
+		}
+		return wordToClean.trim();
+	}
+}
@@ -0,0 +1,244 @@
+package de.vetemi.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.Random;
+
+/**
+ * Generates a corpus in the formats of the workflow: lines of the dict.cc
+ * translation file and source words in the naming styles of source code. The
+ * German words are built of syllables, so that compositions and umlauts occur
+ * as in the real file, and the lines carry the annotations of dict.cc: genders
+ * in braces, notes in brackets and parentheses, abbreviations in angle
+ * brackets, "etw."/"jdm." and "sth."/"sb." objects and multi-word values. The
+ * source words combine these words, with umlauts spelled as in source code
+ * ("ae", "oe", "ue", "ss") in about half of the parts. The same seed always
+ * gives the same corpus.
+ * <p>
+ * The lines are generated one by one, so corpora of millions of lines can be
+ * written without holding them in memory:
+ *
+ * <pre>
+ * CorpusGenerator &lt;resource directory&gt; &lt;translation file lines&gt; &lt;source words&gt;
+ * </pre>
+ *
+ * @author Valmir Etemi
+ */
+public class CorpusGenerator {
+
+	/**
+	 * Default seed of the generated corpus
+	 */
+	public static final long DEFAULT_SEED = 42;
+
+	private static final String[] GERMAN_SYLLABLES = { "kun", "de", "rech", "nung", "be", "trag", "schlüs", "sel",
+			"wert", "da", "ten", "bank", "ab", "fra", "ge", "grö", "ße", "stra", "über", "set", "zung", "prüf", "lie",
+			"fer", "an", "zahl", "preis", "lis", "te", "feh", "ler", "mel", "dung", "kon", "to", "stand", "nut",
+			"zer", "mit", "glied", "auf", "wand", "ein", "trä", "dat", "ei", "la", "den", "spei", "cher", "mün",
+			"zen", "hö", "he", "ver", "wal", "tung", "stück", "lis", "te" };
+
+	private static final String[] ENGLISH_SYLLABLES = { "ac", "count", "val", "ue", "num", "ber", "cus", "tom",
+			"er", "in", "voice", "quer", "y", "key", "price", "list", "mes", "sage", "stor", "age", "us", "file",
+			"load", "check", "da", "ta", "mem", "bal", "ance", "ex", "pen", "di", "ture", "man", "age", "ment" };
+
+	private static final String[] GERMAN_ANNOTATIONS = { "", "", "", " {f}", " {m}", " {n}", " {pl}", " [fig.]",
+			" {f} [Berechnung]", " {m} [auch fig.]", " <Abk.>", " (an Zeit)", " {f} [ugs.] <Kurzf.>" };
+
+	private static final String[] ENGLISH_ANNOTATIONS = { "", "", "", "", " [fig.]", " [coll.]", " (of time)",
+			" <abbr.>", " {pl}" };
+
+	private static final String[] GERMAN_OBJECTS = { "etw. ", "jdm. ", "jdn. ", "jdm. etw. ", "sich " };
+
+	private static final String[] ENGLISH_OBJECTS = { "sth.", "sb.", "sb. sth.", "sth. to sb.", "oneself" };
+
+	private static final String[] WORD_CLASSES = { "noun", "adj", "adv", "past-p" };
+
+	private static final String[] SOURCE_PREFIXES = { "get", "set", "is", "has", "load", "berechne", "pruefe",
+			"erstelle" };
+
+	private final Random random;
+
+	/**
+	 * German word of the last translation file line, repeated for its further
+	 * translations
+	 */
+	private String german;
+
+	/**
+	 * @param seed
+	 *            seed of the corpus
+	 */
+	public CorpusGenerator(long seed) {
+		random = new Random(seed);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.out.println(
+					"Usage: CorpusGenerator <resource directory> <translation file lines> <source words>");
+			return;
+		}
+		File resourceDirectory = new File(args[0]);
+		int lineCount = Integer.parseInt(args[1]);
+		int wordCount = Integer.parseInt(args[2]);
+		long start = System.currentTimeMillis();
+		writeResources(resourceDirectory, lineCount, wordCount);
+		System.out.println("Generated " + lineCount + " translation file lines and " + wordCount
+				+ " source words in " + resourceDirectory + " --> Time: " + (System.currentTimeMillis() - start));
+	}
+
+	/**
+	 * Writes the translation file GermanEnglishTranslations.txt and the word
+	 * source WordSource.txt into the directory
+	 *
+	 * @param resourceDirectory
+	 *            the resource directory of the workflow
+	 * @param lineCount
+	 *            number of lines of the translation file
+	 * @param wordCount
+	 *            number of source words
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void writeResources(File resourceDirectory, int lineCount, int wordCount) throws IOException {
+		if (!resourceDirectory.isDirectory() && !resourceDirectory.mkdirs()) {
+			throw new IOException("Cannot create " + resourceDirectory);
+		}
+		BufferedWriter bWriter = openWriter(new File(resourceDirectory, "GermanEnglishTranslations.txt"));
+		try {
+			CorpusGenerator generator = new CorpusGenerator(DEFAULT_SEED);
+			bWriter.write("# generated dict.cc translation file");
+			bWriter.newLine();
+			for (int i = 0; i < lineCount; i++) {
+				bWriter.write(generator.nextDictionaryLine());
+				bWriter.newLine();
+			}
+		} finally {
+			bWriter.close();
+		}
+
+		bWriter = openWriter(new File(resourceDirectory, "WordSource.txt"));
+		try {
+			CorpusGenerator generator = new CorpusGenerator(DEFAULT_SEED + 1);
+			for (int i = 0; i < wordCount; i++) {
+				bWriter.write(generator.nextSourceWord());
+				bWriter.newLine();
+			}
+		} finally {
+			bWriter.close();
+		}
+	}
+
+	private static BufferedWriter openWriter(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 1 << 16);
+	}
+
+	/**
+	 * Generates the next line of the translation file. A German word gets
+	 * about four translations in consecutive lines, as in dict.cc
+	 *
+	 * @return the line: German, English and word class, separated by tabs
+	 */
+	public String nextDictionaryLine() {
+		if (german == null || random.nextInt(4) == 0) {
+			german = germanWord(compositionPartCount());
+		}
+		StringBuilder line = new StringBuilder(64);
+		if (random.nextInt(5) == 0) {
+			// verb with object, e.g. "etw. prüfen	to check sth.	verb"
+			int object = random.nextInt(GERMAN_OBJECTS.length);
+			line.append(GERMAN_OBJECTS[object]).append(german.toLowerCase()).append("en\tto ");
+			appendEnglishWords(line, 1);
+			line.append(' ').append(ENGLISH_OBJECTS[object]).append("\tverb");
+			return line.toString();
+		}
+		line.append(german).append(GERMAN_ANNOTATIONS[random.nextInt(GERMAN_ANNOTATIONS.length)]).append('\t');
+		appendEnglishWords(line, 1 + random.nextInt(3));
+		line.append(ENGLISH_ANNOTATIONS[random.nextInt(ENGLISH_ANNOTATIONS.length)]).append('\t')
+				.append(WORD_CLASSES[random.nextInt(WORD_CLASSES.length)]);
+		return line.toString();
+	}
+
+	/**
+	 * Generates the next source word in camel case, title case, snake case or
+	 * with hyphens. The parts are German words and compositions like the ones
+	 * of the translation file, some are English already
+	 *
+	 * @return the source word
+	 */
+	public String nextSourceWord() {
+		int style = random.nextInt(4);
+		StringBuilder word = new StringBuilder(32);
+		int partCount = 1 + random.nextInt(3);
+		boolean prefix = random.nextInt(3) == 0;
+		for (int i = 0; i < partCount + (prefix ? 1 : 0); i++) {
+			String part;
+			if (prefix && i == 0) {
+				part = SOURCE_PREFIXES[random.nextInt(SOURCE_PREFIXES.length)];
+			} else if (random.nextInt(6) == 0) {
+				part = word(ENGLISH_SYLLABLES, 1 + random.nextInt(2));
+			} else {
+				part = germanWord(compositionPartCount()).toLowerCase();
+				if (random.nextBoolean()) {
+					// umlauts are mostly avoided in source code
+					part = part.replace("ä", "ae").replace("ö", "oe").replace("ü", "ue").replace("ß", "ss");
+				}
+			}
+			if (style <= 1 && (i > 0 || style == 1)) {
+				word.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+			} else {
+				if (i > 0) {
+					word.append(style == 2 ? '_' : '-');
+				}
+				word.append(part);
+			}
+		}
+		return word.toString();
+	}
+
+	private void appendEnglishWords(StringBuilder line, int wordCount) {
+		for (int i = 0; i < wordCount; i++) {
+			if (i > 0) {
+				line.append(' ');
+			}
+			line.append(word(ENGLISH_SYLLABLES, 1 + random.nextInt(3)));
+		}
+	}
+
+	/**
+	 * Number of parts of a German word: most words are simple, some are
+	 * compositions of two or three parts
+	 */
+	private int compositionPartCount() {
+		int percent = random.nextInt(100);
+		return percent < 60 ? 1 : percent < 90 ? 2 : 3;
+	}
+
+	/**
+	 * Generates a capitalized German word of one or more parts, each of two
+	 * or three syllables
+	 */
+	private String germanWord(int partCount) {
+		StringBuilder german = new StringBuilder();
+		for (int i = 0; i < partCount; i++) {
+			String part = word(GERMAN_SYLLABLES, 2 + random.nextInt(2));
+			if (i == 0) {
+				german.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+			} else {
+				german.append(part);
+			}
+		}
+		return german.toString();
+	}
+
+	private String word(String[] syllables, int syllableCount) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < syllableCount; i++) {
+			word.append(syllables[random.nextInt(syllables.length)]);
+		}
+		return word.toString();
+	}
+}
@@ -0,0 +1,112 @@
+package de.vetemi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.vetemi.translation.ITranslationDictionary;
+import de.vetemi.translation.TranslationIO;
+import de.vetemi.wordprocessing.DictCodeWordProcessor;
+
+/**
+ * Measures TranslationIO.importTranslationMaps: parsing the translation file
+ * (and compiling it, as the first run does) and mapping the compiled
+ * dictionary of the following runs. Every operation imports once, so single
+ * shot time is measured.
+ *
+ * @author Valmir Etemi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ImportBenchmark {
+
+	/**
+	 * Number of lines of the translation file
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int dictionarySize;
+
+	private File workspace;
+
+	private File compiledDictionaryFile;
+
+	private PrintStream out;
+
+	@Setup
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("import-benchmark").toFile();
+		CorpusGenerator.writeResources(workspace, dictionarySize, 0);
+		compiledDictionaryFile = new File(workspace, "GermanEnglishTranslations.dict");
+		out = System.out;
+		System.setOut(BenchmarkData.discardingStream());
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(out);
+		BenchmarkData.delete(workspace);
+	}
+
+	/**
+	 * Removes the compiled dictionary so that the translation file is parsed
+	 * and compiled again
+	 */
+	@State(Scope.Thread)
+	public static class ParseState {
+
+		@Setup(Level.Invocation)
+		public void removeCompiledDictionary(ImportBenchmark benchmark) {
+			benchmark.compiledDictionaryFile.delete();
+		}
+	}
+
+	/**
+	 * Makes sure that the compiled dictionary exists and is up to date
+	 */
+	@State(Scope.Thread)
+	public static class MapState {
+
+		@Setup(Level.Iteration)
+		public void compileDictionary(ImportBenchmark benchmark) {
+			if (!benchmark.compiledDictionaryFile.exists()) {
+				benchmark.importDictionary();
+			}
+		}
+	}
+
+	@Benchmark
+	public ITranslationDictionary parseAndCompileTranslationFile(ParseState state) {
+		return importDictionary();
+	}
+
+	@Benchmark
+	public ITranslationDictionary mapCompiledDictionary(MapState state) {
+		return importDictionary();
+	}
+
+	private ITranslationDictionary importDictionary() {
+		TranslationIO translationIO = new TranslationIO(new DictCodeWordProcessor(), workspace);
+		translationIO.importTranslationMaps();
+		return translationIO.getTranslationDictionary();
+	}
+}
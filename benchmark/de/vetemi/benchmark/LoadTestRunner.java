@@ -0,0 +1,130 @@
+package de.vetemi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.vetemi.main.ProcessHandler;
+
+/**
+ * Load test of the ProcessHandler at growing corpus sizes. For every size a
+ * corpus is generated into a temporary resource directory and the workflow
+ * runs twice: the first run parses and compiles the translation file and
+ * starts with empty memories, the second one maps the compiled dictionary and
+ * finds the memories of the first run. Reports the time, the throughput in
+ * source words per second and the peak heap of every run.
+ *
+ * <pre>
+ * LoadTestRunner [--pipeline] [--threads=N] [translation file lines:source words ...]
+ * </pre>
+ *
+ * The peak heap is the sum of the peak usages of the heap memory pools, it
+ * is only meaningful with a heap large enough for the biggest size (-Xmx).
+ *
+ * @author Valmir Etemi
+ */
+public class LoadTestRunner {
+
+	/**
+	 * Sizes of the corpora if none are given
+	 */
+	private static final String[] DEFAULT_SIZES = { "10000:1000", "100000:10000", "1000000:100000",
+			"10000000:1000000" };
+
+	private static final String PIPELINE_OPTION = "--pipeline";
+
+	private static final String THREADS_OPTION = "--threads=";
+
+	private final PrintStream out = System.out;
+
+	private boolean pipeline;
+
+	private int threads = 1;
+
+	public static void main(String[] args) throws IOException {
+		LoadTestRunner runner = new LoadTestRunner();
+		List<String> sizes = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.equals(PIPELINE_OPTION)) {
+				runner.pipeline = true;
+			} else if (arg.startsWith(THREADS_OPTION)) {
+				runner.threads = Integer.parseInt(arg.substring(THREADS_OPTION.length()));
+			} else {
+				sizes.add(arg);
+			}
+		}
+		if (sizes.isEmpty()) {
+			for (String size : DEFAULT_SIZES) {
+				sizes.add(size);
+			}
+		}
+
+		runner.out.println(String.format("%-10s %10s %10s %-6s %10s %12s %10s", "workflow", "lines", "words", "run",
+				"time ms", "words/s", "heap MB"));
+		for (String size : sizes) {
+			String[] counts = size.split(":");
+			runner.run(Integer.parseInt(counts[0]), Integer.parseInt(counts[1]));
+		}
+	}
+
+	/**
+	 * Generates the corpus of the size and runs the workflow on it twice
+	 *
+	 * @param lineCount
+	 *            number of lines of the translation file
+	 * @param wordCount
+	 *            number of source words
+	 * @throws IOException
+	 *             if the corpus cannot be written
+	 */
+	private void run(int lineCount, int wordCount) throws IOException {
+		File workspace = Files.createTempDirectory("load-test").toFile();
+		try {
+			CorpusGenerator.writeResources(workspace, lineCount, wordCount);
+			runWorkflow(workspace, lineCount, wordCount, "first");
+			runWorkflow(workspace, lineCount, wordCount, "second");
+		} finally {
+			BenchmarkData.delete(workspace);
+		}
+	}
+
+	private void runWorkflow(File workspace, int lineCount, int wordCount, String run) {
+		ProcessHandler processHandler = new ProcessHandler(workspace);
+		processHandler.setParallelism(threads);
+		System.gc();
+		List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				heapPools.add(pool);
+			}
+		}
+
+		// the progress output of the workflow would dominate the time
+		System.setOut(BenchmarkData.discardingStream());
+		long start = System.nanoTime();
+		try {
+			if (pipeline) {
+				processHandler.processTranslationPipeline();
+			} else {
+				processHandler.processTranslationWorkFlow();
+			}
+		} finally {
+			System.setOut(out);
+		}
+		long time = (System.nanoTime() - start) / 1000000;
+
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+		out.println(String.format("%-10s %10d %10d %-6s %10d %12d %10d", pipeline ? "pipeline" : "workflow",
+				lineCount, wordCount, run, time, wordCount * 1000L / Math.max(time, 1), peakHeap / (1024 * 1024)));
+	}
+}
@@ -0,0 +1,117 @@
+package de.vetemi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.vetemi.translation.DictTranslator;
+import de.vetemi.translation.TranslationIO;
+import de.vetemi.translation.TranslationMemory;
+import de.vetemi.wordprocessing.DictCodeWordProcessor;
+
+/**
+ * Measures DictTranslator.translate for the parts of all source words. With a
+ * cold memory every operation starts with empty translation and split
+ * memories, so every part is looked up in the dictionary. With a warm memory
+ * the memories already contain all parts.
+ *
+ * @author Valmir Etemi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslatorBenchmark {
+
+	/**
+	 * Number of lines of the translation file
+	 */
+	@Param({ "10000", "100000" })
+	public int dictionarySize;
+
+	/**
+	 * Number of source words
+	 */
+	@Param({ "1000", "10000" })
+	public int sourceSize;
+
+	private File workspace;
+
+	private String[] wordParts;
+
+	private DictTranslator translator;
+
+	private TranslationMemory warmTranslationMemory;
+
+	private TranslationMemory warmSplitMemory;
+
+	@Setup
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("translator-benchmark").toFile();
+		CorpusGenerator.writeResources(workspace, dictionarySize, sourceSize);
+		DictCodeWordProcessor wordProcessor = new DictCodeWordProcessor();
+		TranslationIO translationIO = new TranslationIO(wordProcessor, workspace);
+		translationIO.importTranslationMaps();
+
+		List<String> parts = new ArrayList<String>();
+		for (String word : BenchmarkData.sourceWords(sourceSize)) {
+			parts.addAll(wordProcessor.getWordParts(word));
+		}
+		wordParts = parts.toArray(new String[parts.size()]);
+
+		translator = new DictTranslator(wordProcessor);
+		translator.setTranslationDictionary(translationIO.getTranslationDictionary());
+		warmTranslationMemory = new TranslationMemory();
+		warmSplitMemory = new TranslationMemory();
+		translator.setTranslationMemory(warmTranslationMemory);
+		translator.setSplitMemory(warmSplitMemory);
+		for (String wordPart : wordParts) {
+			translator.translate(wordPart);
+		}
+		System.out.println("Translating " + wordParts.length + " word parts");
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkData.delete(workspace);
+	}
+
+	@Benchmark
+	public void coldMemory(Blackhole blackhole) {
+		translator.setTranslationMemory(new TranslationMemory());
+		translator.setSplitMemory(new TranslationMemory());
+		translateAll(blackhole);
+	}
+
+	@Benchmark
+	public void warmMemory(Blackhole blackhole) {
+		translator.setTranslationMemory(warmTranslationMemory);
+		translator.setSplitMemory(warmSplitMemory);
+		translateAll(blackhole);
+	}
+
+	private void translateAll(Blackhole blackhole) {
+		for (String wordPart : wordParts) {
+			blackhole.consume(translator.translate(wordPart));
+		}
+	}
+}
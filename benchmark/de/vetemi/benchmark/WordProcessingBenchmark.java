@@ -0,0 +1,90 @@
+package de.vetemi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.vetemi.wordprocessing.DictCodeWordProcessor;
+
+/**
+ * Measures the word processing of the source words: splitting them into
+ * parts, cleaning them and converting the translated parts back to the form
+ * of the source word. One operation processes all source words.
+ *
+ * @author Valmir Etemi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordProcessingBenchmark {
+
+	/**
+	 * Number of source words
+	 */
+	@Param({ "1000", "100000" })
+	public int sourceSize;
+
+	private String[] words;
+
+	private List<List<String>> wordParts;
+
+	private List<List<String>> translatedParts;
+
+	private DictCodeWordProcessor wordProcessor;
+
+	@Setup
+	public void setUp() {
+		wordProcessor = new DictCodeWordProcessor();
+		List<String> sourceWords = BenchmarkData.sourceWords(sourceSize);
+		words = sourceWords.toArray(new String[sourceWords.size()]);
+		wordParts = new ArrayList<List<String>>(words.length);
+		translatedParts = new ArrayList<List<String>>(words.length);
+		for (String word : words) {
+			List<String> parts = wordProcessor.getWordParts(word);
+			List<String> translated = new ArrayList<String>(parts.size());
+			for (String part : parts) {
+				// translations are often longer and contain spaces
+				translated.add(part.length() % 2 == 0 ? part + " value" : part);
+			}
+			wordParts.add(parts);
+			translatedParts.add(translated);
+		}
+	}
+
+	@Benchmark
+	public void getWordParts(Blackhole blackhole) {
+		for (String word : words) {
+			blackhole.consume(wordProcessor.getWordParts(word));
+		}
+	}
+
+	@Benchmark
+	public void convertWordToOrigin(Blackhole blackhole) {
+		for (int i = 0; i < words.length; i++) {
+			blackhole.consume(wordProcessor.convertWordToOrigin(translatedParts.get(i), wordParts.get(i), words[i]));
+		}
+	}
+
+	@Benchmark
+	public void cleanWordToTranslate(Blackhole blackhole) {
+		for (String word : words) {
+			blackhole.consume(wordProcessor.cleanWordToTranslate(word));
+		}
+	}
+}
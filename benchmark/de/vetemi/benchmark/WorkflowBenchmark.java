@@ -0,0 +1,100 @@
+package de.vetemi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.vetemi.main.ProcessHandler;
+
+/**
+ * Measures a whole run of the translation workflow and of the streaming
+ * pipeline: importing, cleaning, translating and exporting all source words.
+ * The compiled dictionary is made once, the translation and split memories
+ * are removed before every run, so each run starts with cold memories like a
+ * new word source. The progress output is discarded.
+ *
+ * @author Valmir Etemi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorkflowBenchmark {
+
+	/**
+	 * Number of lines of the translation file
+	 */
+	@Param({ "10000", "100000" })
+	public int dictionarySize;
+
+	/**
+	 * Number of source words
+	 */
+	@Param({ "1000", "10000" })
+	public int sourceSize;
+
+	/**
+	 * Number of translating threads
+	 */
+	@Param({ "1" })
+	public int threads;
+
+	private File workspace;
+
+	private PrintStream out;
+
+	@Setup
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("workflow-benchmark").toFile();
+		CorpusGenerator.writeResources(workspace, dictionarySize, sourceSize);
+		out = System.out;
+		System.setOut(BenchmarkData.discardingStream());
+		new ProcessHandler(workspace).compileDictionary();
+	}
+
+	@Setup(Level.Invocation)
+	public void removeMemory() {
+		new File(workspace, "TranslationMemory.txt").delete();
+		new File(workspace, "SplitMemory.txt").delete();
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(out);
+		BenchmarkData.delete(workspace);
+	}
+
+	@Benchmark
+	public void workflow() {
+		createProcessHandler().processTranslationWorkFlow();
+	}
+
+	@Benchmark
+	public void pipeline() {
+		createProcessHandler().processTranslationPipeline();
+	}
+
+	private ProcessHandler createProcessHandler() {
+		ProcessHandler processHandler = new ProcessHandler(workspace);
+		processHandler.setParallelism(threads);
+		return processHandler;
+	}
+}
@@ -0,0 +1,137 @@
+package de.vetemi.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A word source file of a batch and its output files. The output file of the
+ * words without translation is named after the output file if not given, e.g.
+ * "WordOutput.txt" -> "WordOutputNotTranslated.txt".
+ * <p>
+ * A manifest lists the jobs of a batch, one per line: the word source file,
+ * the output file and optionally the output file of the words without
+ * translation, separated by semicolons. Relative paths are resolved against
+ * the directory of the manifest, empty lines and lines starting with "#" are
+ * ignored.
+ *
+ * @author Valmir Etemi
+ */
+public class BatchJob {
+
+	/**
+	 * Separator of the files of a manifest line
+	 */
+	private static final String SEPARATOR = ";";
+
+	/**
+	 * Appended to the name of the output file for the words without
+	 * translation
+	 */
+	private static final String NOT_TRANSLATED_SUFFIX = "NotTranslated";
+
+	private final File wordSourceFile;
+
+	private final File wordOutputFile;
+
+	private final File notTranslatedFile;
+
+	/**
+	 * @param wordSourceFile
+	 *            the word source file
+	 * @param wordOutputFile
+	 *            receives the translated words
+	 */
+	public BatchJob(File wordSourceFile, File wordOutputFile) {
+		this(wordSourceFile, wordOutputFile, notTranslatedFile(wordOutputFile));
+	}
+
+	/**
+	 * @param wordSourceFile
+	 *            the word source file
+	 * @param wordOutputFile
+	 *            receives the translated words
+	 * @param notTranslatedFile
+	 *            receives the words without translation
+	 */
+	public BatchJob(File wordSourceFile, File wordOutputFile, File notTranslatedFile) {
+		this.wordSourceFile = wordSourceFile;
+		this.wordOutputFile = wordOutputFile;
+		this.notTranslatedFile = notTranslatedFile;
+	}
+
+	/**
+	 * Reads the jobs of a manifest
+	 *
+	 * @param manifest
+	 *            the manifest file
+	 * @return the jobs in the order of the manifest
+	 * @throws IOException
+	 *             if the manifest cannot be read
+	 * @throws IllegalArgumentException
+	 *             if a line does not contain two or three files
+	 */
+	public static List<BatchJob> readManifest(File manifest) throws IOException {
+		File directory = manifest.getAbsoluteFile().getParentFile();
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		try (BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(manifest), "UTF-8"))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = bReader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] files = line.split(SEPARATOR);
+				if (files.length < 2 || files.length > 3) {
+					throw new IllegalArgumentException(
+							"Expected source;output[;not translated output] in " + manifest + ":" + lineNumber);
+				}
+				File wordSourceFile = resolve(directory, files[0]);
+				File wordOutputFile = resolve(directory, files[1]);
+				if (files.length == 3) {
+					jobs.add(new BatchJob(wordSourceFile, wordOutputFile, resolve(directory, files[2])));
+				} else {
+					jobs.add(new BatchJob(wordSourceFile, wordOutputFile));
+				}
+			}
+		}
+		return jobs;
+	}
+
+	private static File resolve(File directory, String path) {
+		File file = new File(path.trim());
+		return file.isAbsolute() ? file : new File(directory, path.trim());
+	}
+
+	/**
+	 * Inserts the suffix before the extension of the output file
+	 */
+	private static File notTranslatedFile(File wordOutputFile) {
+		String name = wordOutputFile.getName();
+		int extension = name.lastIndexOf('.');
+		if (extension <= 0) {
+			return new File(wordOutputFile.getParentFile(), name + NOT_TRANSLATED_SUFFIX);
+		}
+		return new File(wordOutputFile.getParentFile(),
+				name.substring(0, extension) + NOT_TRANSLATED_SUFFIX + name.substring(extension));
+	}
+
+	public File getWordSourceFile() {
+		return wordSourceFile;
+	}
+
+	public File getWordOutputFile() {
+		return wordOutputFile;
+	}
+
+	public File getNotTranslatedFile() {
+		return notTranslatedFile;
+	}
+}
@@ -1,14 +1,38 @@
 package de.vetemi.main;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
+import de.vetemi.metrics.ProgressReporter;
+import de.vetemi.metrics.SlowWordEvent;
+import de.vetemi.metrics.TranslationTrace;
+import de.vetemi.metrics.WorkflowMetrics;
 import de.vetemi.translation.AbstractTranslator;
 import de.vetemi.translation.DictTranslator;
+import de.vetemi.translation.ITranslationDictionary;
+import de.vetemi.translation.IncrementalRun;
+import de.vetemi.translation.IWordSource;
+import de.vetemi.translation.IdentifierScanner;
+import de.vetemi.translation.SourceRewriter;
 import de.vetemi.translation.TranslationIO;
+import de.vetemi.translation.TranslationMemory;
+import de.vetemi.translation.TranslationOutputWriter;
+import de.vetemi.translation.TranslationResult;
+import de.vetemi.translation.TranslationService;
 import de.vetemi.wordprocessing.DictCodeWordProcessor;
 
 /**
@@ -21,14 +45,10 @@ import de.vetemi.wordprocessing.DictCodeWordProcessor;
 public class ProcessHandler {
 
 	/**
-	 * Imported translation file as German to English translation map
+	 * Imported translation file as German to English index over the cleaned
+	 * keys. Also contains the English words for cleaning
 	 */
-	private HashMap<String, String> germanToEnglishTranslationMap;
-	/**
-	 * Imported translation file as English to German translation map for
-	 * cleaning
-	 */
-	private HashMap<String, String> englishToGermanTranslationMap;
+	private ITranslationDictionary translationDictionary;
 	/**
 	 * Imported words which should be translated
 	 */
@@ -39,9 +59,27 @@ public class ProcessHandler {
 	private HashMap<String, String> translationOutputMap = new HashMap<String, String>();
 	
 	/**
-	 * Contains all already translated words from previous runs
+	 * Contains all already translated words from previous runs. Is shared by
+	 * all translating threads
+	 */
+	private TranslationMemory translationMemory;
+
+	/**
+	 * Contains the parts of all already decompounded words from previous runs.
+	 * Is shared by all translating threads
+	 */
+	private TranslationMemory splitMemory;
+
+	/**
+	 * Number of threads which translate the source set. 1 translates
+	 * sequentially
 	 */
-	private HashMap<String, String> memoryTranslationMap;
+	private int parallelism = 1;
+
+	/**
+	 * Capacity of the queues between the stages of the streaming pipeline
+	 */
+	private final int PIPELINE_QUEUE_CAPACITY = 1024;
 
 	/**
 	 * IO component for imports and exports
@@ -57,12 +95,80 @@ public class ProcessHandler {
 	 */
 	private DictCodeWordProcessor wordProcessor;
 
+	/**
+	 * Service which decides if a source word needs a translation and
+	 * translates it part by part with the translator. Is created when the
+	 * dictionary has been imported
+	 */
+	private TranslationService translationService;
+
+	/**
+	 * Metrics of the stages and source words of the run
+	 */
+	private final WorkflowMetrics metrics = new WorkflowMetrics();
+
+	/**
+	 * Milliseconds between two progress reports while translating, 0 for no
+	 * reports
+	 */
+	private long progressInterval = 2000;
+
+	/**
+	 * File which receives the trace of every translated source word, null
+	 * for no trace
+	 */
+	private File traceFile;
+
+	/**
+	 * Trace of the current translation, null if not traced
+	 */
+	private TranslationTrace trace;
+
+	/**
+	 * True if only the source words which are new since the previous run are
+	 * translated
+	 */
+	private boolean incremental;
+
+	/**
+	 * The current incremental run, null if every source word is translated
+	 */
+	private IncrementalRun incrementalRun;
+
 	public ProcessHandler() {
-		translationIO = new TranslationIO();
+		this(new File("resource"));
+	}
+
+	/**
+	 * @param resourceDirectory
+	 *            directory which contains the translation file, the word
+	 *            source and receives the output
+	 */
+	public ProcessHandler(File resourceDirectory) {
 		wordProcessor = new DictCodeWordProcessor();
+		translationIO = new TranslationIO(wordProcessor, resourceDirectory);
 		translator = new DictTranslator(wordProcessor);
 	}
 
+	/**
+	 * Compiles the translation file into the binary dictionary snapshot which
+	 * is mapped by the following runs
+	 */
+	public void compileDictionary() {
+		System.out.println("Start compiling translation file");
+		translationIO.compileDictionary();
+		System.out.println("End compiling translation file");
+	}
+
+	/**
+	 * Compacts the translation memory log, which otherwise only grows
+	 */
+	public void compactTranslationMemory() {
+		System.out.println("Start compacting translation memory");
+		translationIO.compactMemoryTranslation();
+		System.out.println("End compacting translation memory");
+	}
+
 	/**
 	 * Contains the process workflow
 	 */
@@ -71,6 +177,15 @@ public class ProcessHandler {
 		System.out.println("Start translation process workflow");
 		System.out.println("----------------------------------");
 
+		// Step 0: nothing to do if the word source is unchanged
+		if (!startIncrementalRun(translationIO.getWordSourceFile().getAbsolutePath(),
+				translationIO.getWordSourceFile())) {
+			System.out.println("----------------------------------");
+			System.out.println("End translation process workflow");
+			System.out.println("----------------------------------");
+			return;
+		}
+
 		// Step 1: import and configure files
 		importFiles();
 
@@ -82,102 +197,676 @@ public class ProcessHandler {
 
 		// Step 4: export output
 		exportOutput();
+		finishIncrementalRun(translationIO.getWordSourceFile());
+		metrics.print(translationMemory, splitMemory, translator.getStatistics());
 		System.out.println("----------------------------------");
 		System.out.println("End translation process workflow");
 		System.out.println("----------------------------------");
 	}
 
+	/**
+	 * Contains the streaming process workflow. Only the dictionary and the
+	 * memory are imported up front, the source words are read, cleaned,
+	 * translated and exported concurrently
+	 */
+	public void processTranslationPipeline() {
+		System.out.println("----------------------------------");
+		System.out.println("Start translation pipeline workflow");
+		System.out.println("----------------------------------");
+
+		// Step 0: nothing to do if the word source is unchanged
+		if (!startIncrementalRun(translationIO.getWordSourceFile().getAbsolutePath(),
+				translationIO.getWordSourceFile())) {
+			System.out.println("----------------------------------");
+			System.out.println("End translation pipeline workflow");
+			System.out.println("----------------------------------");
+			return;
+		}
+
+		// Step 1: import dictionary and memory
+		importDictionaryAndMemory();
+
+		// Step 2: clean, translate and export the streamed source words
+		try (TranslationTrace translationTrace = openTrace()) {
+			trace = translationTrace;
+			runPipeline("pipeline", translationIO.getWordSourceFile(), translationIO.getWordOutputFile(),
+					translationIO.getWordOutputNotTranslatedFile());
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			trace = null;
+		}
+		finishIncrementalRun(translationIO.getWordSourceFile());
+
+		// Step 3: export memory
+		WorkflowMetrics.Stage exportStage = metrics.startStage("export");
+		translationIO.exportMemoryTranslation(translationMemory);
+		translationIO.exportSplitMemory(splitMemory);
+		exportStage.end(translationMemory.size());
+		metrics.print(translationMemory, splitMemory, translator.getStatistics());
+		System.out.println("----------------------------------");
+		System.out.println("End translation pipeline workflow");
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Translates the word source files of a batch one after another. The
+	 * dictionary, the memory and the word splitters are loaded once and shared
+	 * by all files, every file is streamed through the pipeline into its own
+	 * output files
+	 *
+	 * @param jobs
+	 *            the word source files and their output files
+	 */
+	public void processBatch(List<BatchJob> jobs) {
+		System.out.println("----------------------------------");
+		System.out.println("Start translation batch workflow. Files: " + jobs.size());
+		System.out.println("----------------------------------");
+
+		// Step 1: import dictionary and memory
+		importDictionaryAndMemory();
+
+		// Step 2: stream every file through the pipeline
+		try (TranslationTrace translationTrace = openTrace()) {
+			trace = translationTrace;
+			for (BatchJob job : jobs) {
+				runPipeline("file " + job.getWordSourceFile().getName(), job.getWordSourceFile(),
+						job.getWordOutputFile(), job.getNotTranslatedFile());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			trace = null;
+		}
+
+		// Step 3: export memory
+		WorkflowMetrics.Stage exportStage = metrics.startStage("export");
+		translationIO.exportMemoryTranslation(translationMemory);
+		translationIO.exportSplitMemory(splitMemory);
+		exportStage.end(translationMemory.size());
+		metrics.print(translationMemory, splitMemory, translator.getStatistics());
+		System.out.println("----------------------------------");
+		System.out.println("End translation batch workflow");
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Translates the names declared in the Java files of a source tree. The
+	 * tree is scanned by one thread per processor while the found names are
+	 * already cleaned, translated and exported by the pipeline, so no word
+	 * source file is needed
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 */
+	public void processSourceTree(File sourceDirectory) {
+		System.out.println("----------------------------------");
+		System.out.println("Start translation scan workflow");
+		System.out.println("----------------------------------");
+
+		// Step 0: compare with the previous run of the tree
+		startIncrementalRun(sourceDirectory.getAbsolutePath(), null);
+
+		// Step 1: import dictionary and memory
+		importDictionaryAndMemory();
+
+		// Step 2: scan the tree, clean, translate and export the found names
+		System.out.println("Start scanning source tree: " + sourceDirectory.getPath());
+		try (TranslationTrace translationTrace = openTrace();
+				IdentifierScanner scanner = new IdentifierScanner(sourceDirectory,
+						Runtime.getRuntime().availableProcessors(),
+						incrementalRun == null ? null : incrementalRun.getPreviousManifest(),
+						incrementalRun == null ? null : incrementalRun.getManifest())) {
+			trace = translationTrace;
+			runPipeline("scan", scanner, translationIO.getWordOutputFile(),
+					translationIO.getWordOutputNotTranslatedFile());
+			System.out.println("Scanned files: " + scanner.getFileCount() + " Unchanged files: "
+					+ scanner.getReusedFileCount() + " Bytes: " + scanner.getByteCount() + " Declarations: "
+					+ scanner.getDeclarationCount() + " Distinct names: " + scanner.getDistinctCount());
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			trace = null;
+		}
+		finishIncrementalRun(null);
+
+		// Step 3: export memory
+		WorkflowMetrics.Stage exportStage = metrics.startStage("export");
+		translationIO.exportMemoryTranslation(translationMemory);
+		translationIO.exportSplitMemory(splitMemory);
+		exportStage.end(translationMemory.size());
+		metrics.print(translationMemory, splitMemory, translator.getStatistics());
+		System.out.println("----------------------------------");
+		System.out.println("End translation scan workflow");
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Renames the identifiers of the Java files of a source tree with the
+	 * translations of the output file, e.g. of a previous scan. The files are
+	 * rewritten by one thread per processor
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 * @param diffFile
+	 *            receives the changes as unified diff instead of changing
+	 *            the files, null to change the files
+	 */
+	public void applyTranslations(File sourceDirectory, File diffFile) {
+		System.out.println("----------------------------------");
+		System.out.println("Start applying translations to source tree: " + sourceDirectory.getPath());
+		System.out.println("----------------------------------");
+		WorkflowMetrics.Stage applyStage = metrics.startStage("apply");
+		long start = System.currentTimeMillis();
+		SourceRewriter rewriter;
+		try {
+			rewriter = new SourceRewriter(SourceRewriter.readTranslations(translationIO.getWordOutputFile()));
+			int threadCount = Runtime.getRuntime().availableProcessors();
+			if (diffFile == null) {
+				rewriter.rewriteInPlace(sourceDirectory, threadCount);
+			} else {
+				try (Writer diff = new BufferedWriter(
+						new OutputStreamWriter(new FileOutputStream(diffFile), StandardCharsets.UTF_8))) {
+					rewriter.writeDiff(sourceDirectory, threadCount, diff);
+				}
+				System.out.println("Wrote diff: " + diffFile.getPath());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		long end = System.currentTimeMillis();
+		applyStage.end(rewriter.getFileCount());
+		System.out.println("Files: " + rewriter.getFileCount() + " Changed files: " + rewriter.getChangedFileCount()
+				+ " Renamed identifiers: " + rewriter.getReplacementCount() + " Files/s: " + applyStage.getRate());
+		System.out.println("SourceRewriter --> Time: " + (end - start));
+		System.out.println("----------------------------------");
+		System.out.println("End applying translations");
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Imports the dictionary and the memory for translating words on request,
+	 * e.g. by the translation server. The state stays loaded until the
+	 * service is stopped
+	 */
+	public void startService() {
+		System.out.println("----------------------------------");
+		System.out.println("Start translation service");
+		System.out.println("----------------------------------");
+		importDictionaryAndMemory();
+	}
+
+	/**
+	 * Translates source words like the workflow does. Can be called by several
+	 * threads at the same time
+	 *
+	 * @param wordSources
+	 *            the words to translate
+	 * @return the total translation per word in the same order, an empty
+	 *         String if a word has no translation or needs none
+	 */
+	public List<String> translateWords(List<String> wordSources) {
+		List<String> translations = new ArrayList<String>(wordSources.size());
+		for (String wordSource : wordSources) {
+			if (translationService.isTranslatable(wordSource)) {
+				String totalTranslation = translateSourceWord(wordSource);
+				traceTranslation(wordSource, totalTranslation);
+				translations.add(totalTranslation);
+			} else {
+				translations.add("");
+			}
+		}
+		return translations;
+	}
+
+	/**
+	 * Writes the translations and splits found since the last flush to the
+	 * memory files, so that they survive a crash of the service
+	 */
+	public void flushMemory() {
+		try {
+			translationMemory.flush();
+			splitMemory.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Exports the memory and prints the metrics of the service
+	 */
+	public void stopService() {
+		WorkflowMetrics.Stage exportStage = metrics.startStage("export");
+		translationIO.exportMemoryTranslation(translationMemory);
+		translationIO.exportSplitMemory(splitMemory);
+		exportStage.end(translationMemory.size());
+		metrics.print(translationMemory, splitMemory, translator.getStatistics());
+		System.out.println("----------------------------------");
+		System.out.println("End translation service");
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Starts an incremental run of the source, if configured. Without a usable
+	 * previous run every source word is translated
+	 *
+	 * @param source
+	 *            the translated source
+	 * @param sourceFile
+	 *            the word source file, null for a source tree
+	 * @return false if the word source file and the translation file are
+	 *         unchanged since the previous run, so the output is up to date
+	 */
+	private boolean startIncrementalRun(String source, File sourceFile) {
+		if (!incremental) {
+			return true;
+		}
+		try {
+			incrementalRun = new IncrementalRun(translationIO, source);
+			if (sourceFile != null && incrementalRun.isUnchanged(sourceFile)) {
+				System.out.println("Word source unchanged, output is up to date: " + sourceFile.getPath());
+				incrementalRun = null;
+				return false;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			incrementalRun = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the words which are no longer in the source from the output and
+	 * writes the manifest of the incremental run
+	 *
+	 * @param sourceFile
+	 *            the word source file, null for a source tree
+	 */
+	private void finishIncrementalRun(File sourceFile) {
+		if (incrementalRun == null) {
+			return;
+		}
+		try {
+			if (sourceFile != null) {
+				incrementalRun.recordFile(sourceFile);
+			}
+			incrementalRun.finish();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			incrementalRun = null;
+		}
+	}
+
+	/**
+	 * Imports the dictionary and the memory and hands them to the translator,
+	 * the word source is streamed afterwards
+	 */
+	private void importDictionaryAndMemory() {
+		System.out.println("Start importing files");
+		WorkflowMetrics.Stage importStage = metrics.startStage("import");
+		translationIO.importTranslationMaps();
+		translationIO.importMemoryMap();
+		translationDictionary = translationIO.getTranslationDictionary();
+		translationMemory = translationIO.getTranslationMemory();
+		splitMemory = translationIO.getSplitMemory();
+		translator.setTranslationDictionary(translationDictionary);
+		translator.setTranslationMemory(translationMemory);
+		translator.setSplitMemory(splitMemory);
+		translationService = new TranslationService(translator, wordProcessor, translationDictionary);
+		importStage.end(translationDictionary.getEntryCount());
+		System.out.println("----------------------------------");
+	}
+
+	/**
+	 * Streams a word source file through cleaning, translation and export
+	 *
+	 * @param stageName
+	 *            name of the stage in the metrics
+	 * @param wordSourceFile
+	 *            the word source file
+	 * @param wordOutputFile
+	 *            receives the translated words
+	 * @param notTranslatedFile
+	 *            receives the words without translation
+	 */
+	private void runPipeline(String stageName, File wordSourceFile, File wordOutputFile, File notTranslatedFile) {
+		System.out.println("Start translation pipeline for file: " + wordSourceFile.getPath());
+		try (IWordSource source = translationIO.openWordSource(wordSourceFile)) {
+			runPipeline(stageName, source, wordOutputFile, notTranslatedFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Streams the words of a source through cleaning, translation and export
+	 *
+	 * @param stageName
+	 *            name of the stage in the metrics
+	 * @param source
+	 *            the distinct source words
+	 * @param wordOutputFile
+	 *            receives the translated words
+	 * @param notTranslatedFile
+	 *            receives the words without translation
+	 */
+	private void runPipeline(String stageName, IWordSource source, File wordOutputFile, File notTranslatedFile) {
+		WorkflowMetrics.Stage pipelineStage = metrics.startStage(stageName);
+		long start = System.currentTimeMillis();
+		boolean append = false;
+		if (incrementalRun != null) {
+			// only the new words, their translations are added to the output
+			source = incrementalRun.filter(source);
+			append = incrementalRun.hasPreviousResults();
+		}
+		TranslationPipeline pipeline = new TranslationPipeline(this::translatePipelineWord, this::traceTranslation,
+				parallelism, PIPELINE_QUEUE_CAPACITY);
+		ProgressReporter progress = startProgress(-1);
+		try (TranslationOutputWriter output = translationIO.openOutputWriter(wordOutputFile, notTranslatedFile,
+				append)) {
+			pipeline.run(source, output);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			// a failed stage, the output is incomplete but the next file and
+			// the memory export go on
+			System.out.println("Translation pipeline failed: " + e.getMessage());
+			e.printStackTrace();
+			if (incrementalRun != null) {
+				// keep the manifest of the previous run, so that the next run
+				// does not take the incomplete output as up to date
+				System.out.println("Manifest of the incremental run is not written");
+				incrementalRun = null;
+			}
+		} finally {
+			stopProgress(progress);
+		}
+		long end = System.currentTimeMillis();
+		pipelineStage.end(pipeline.getWrittenCount());
+		System.out.println("Read words: " + pipeline.getReadCount() + " Exported words: "
+				+ pipeline.getWrittenCount() + " Words/s: " + pipelineStage.getRate());
+		System.out.println("TranslationPipeline.run() --> Time: " + (end - start));
+		System.out.println("----------------------------------");
+	}
+
 	/**
 	 * Calls the IO component and exports output
 	 */
 	private void exportOutput() {
 		System.out.println("Start exporting output");
-		translationIO.exportOutput(translationOutputMap);
-		translationIO.exportMemoryTranslation(memoryTranslationMap);
+		WorkflowMetrics.Stage stage = metrics.startStage("exportOutput");
+		translationIO.exportOutput(translationOutputMap,
+				incrementalRun != null && incrementalRun.hasPreviousResults());
+		translationIO.exportMemoryTranslation(translationMemory);
+		translationIO.exportSplitMemory(splitMemory);
+		stage.end(translationOutputMap.size());
 		System.out.println("End exporting output");
 		System.out.println("----------------------------------");
 	}
 
 	/**
-	 * Calls the translation component, calls word processor component to clean
-	 * both translation and source word. Stores output in map
+	 * Calls the translation component for every source word, either
+	 * sequentially or in parallel. Stores output in map
 	 */
 	private void translate() {
 		System.out.println("Start translating");
+		WorkflowMetrics.Stage stage = metrics.startStage("translate");
 		long start = System.currentTimeMillis();
 
 		if (translationOutputMap == null) {
 			translationOutputMap = new HashMap<String, String>();
 		}
 
-		translator.setTranslationMap(germanToEnglishTranslationMap);
-		translator.setAlreadyTranslatedMap(memoryTranslationMap);
-
-		boolean hasTranslation = false;
-		List<String> wordParts;
-		List<String> translatedWordParts;
-		String totalTranslation;
-
-		for (String wordSource : translationSourceSet) {
-			System.out.print("Source: " + wordSource + "\t");
-			wordParts = wordProcessor.getWordParts(wordSource);
-			translatedWordParts = new ArrayList<String>();
-			totalTranslation = "";
-			for (String wordPart : wordParts) {
-								
-				// try first without cleaning word
-				String translatedWord = translator.translate(wordPart);
-
-				// if nothing found try with cleaned word
-				if (translatedWord == null || translatedWord.isEmpty()) {
-					String cleanedWort = wordProcessor.cleanWordToTranslate(wordPart);
-					if (!cleanedWort.equals(wordPart))
-						translatedWord = translator.translate(cleanedWort);
-				}
+		translator.setTranslationDictionary(translationDictionary);
+		translator.setTranslationMemory(translationMemory);
+		translator.setSplitMemory(splitMemory);
 
-				if (translatedWord == null || translatedWord.isEmpty()) {
-					// nothing found
-					translatedWordParts.add(wordPart);
-				} else {
-					translatedWordParts.add(translatedWord);
-					hasTranslation = true;
-				}
-			}
-			// put total translated word in map. Could be empty if no
-			// translation was found
-			if (hasTranslation) {
-				totalTranslation = wordProcessor.convertWordToOrigin(translatedWordParts, wordParts, wordSource);
-				translationOutputMap.put(wordSource, totalTranslation);
-				hasTranslation = false;
-				System.out.println("Translation: " + totalTranslation);
+		ProgressReporter progress = startProgress(translationSourceSet.size());
+		try (TranslationTrace translationTrace = openTrace()) {
+			trace = translationTrace;
+			if (parallelism > 1) {
+				translateParallel();
 			} else {
-				translationOutputMap.put(wordSource, "");
-				System.out.println("Translation: None");
+				for (String wordSource : translationSourceSet) {
+					putTranslation(wordSource, translateSourceWord(wordSource));
+				}
 			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			trace = null;
+			stopProgress(progress);
 		}
 
 		long end = System.currentTimeMillis();
+		stage.end(translationSourceSet.size());
 		System.out.println("Translator.translate() --> Time: " + (end - start));
 		System.out.println("End translating");
 		System.out.println("----------------------------------");
 	}
 
+	/**
+	 * Translates the source set with a fork join pool of the configured
+	 * parallelism. The results are put into the output map in the iteration
+	 * order of the source set afterwards, so that the output is the same as
+	 * the sequential one
+	 */
+	private void translateParallel() {
+		System.out.println("Translating with threads: " + parallelism);
+		ConcurrentHashMap<String, String> translations = new ConcurrentHashMap<String, String>(
+				translationSourceSet.size());
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.submit(() -> translationSourceSet.parallelStream()
+					.forEach(wordSource -> translations.put(wordSource, translateSourceWord(wordSource)))).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Translation interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Translation failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		for (String wordSource : translationSourceSet) {
+			putTranslation(wordSource, translations.get(wordSource));
+		}
+	}
+
+	/**
+	 * Translates the source word with the translation service, which splits it
+	 * into parts, calls the translation component for every part and converts
+	 * the translation to the form of the source word. Umlaut spellings like "ae" are matched by
+	 * the dictionary lookup itself. Does not touch the output map, so it can be
+	 * called from several threads
+	 *
+	 * @param wordSource
+	 *            the word to translate
+	 * @return the total translation or an empty String if no part has been
+	 *         translated
+	 */
+	private String translateSourceWord(String wordSource) {
+		SlowWordEvent event = metrics.startWord();
+		long start = System.nanoTime();
+		String totalTranslation = translationService.translate(wordSource).getTranslation();
+		metrics.endWord(event, System.nanoTime() - start, wordSource, totalTranslation);
+		return totalTranslation;
+	}
+
+	/**
+	 * Translates a source word of the pipeline like
+	 * {@link #translateSourceWord(String)}. The parts of the word decide if it
+	 * needs a translation at all, so it is split only once
+	 *
+	 * @param wordSource
+	 *            the word to translate
+	 * @return the total translation, an empty String if no part has been
+	 *         translated or null if the word needs no translation
+	 */
+	private String translatePipelineWord(String wordSource) {
+		SlowWordEvent event = metrics.startWord();
+		long start = System.nanoTime();
+		TranslationResult result = translationService.translate(wordSource);
+		if (!result.isTranslatable()) {
+			if (incrementalRun != null) {
+				incrementalRun.recordSkipped(wordSource);
+			}
+			return null;
+		}
+		metrics.endWord(event, System.nanoTime() - start, wordSource, result.getTranslation());
+		return result.getTranslation();
+	}
+
+	/**
+	 * Puts the total translation of a source word into the output map
+	 *
+	 * @param wordSource
+	 *            the translated word
+	 * @param totalTranslation
+	 *            the translation or an empty String if nothing found
+	 */
+	private void putTranslation(String wordSource, String totalTranslation) {
+		translationOutputMap.put(wordSource, totalTranslation);
+		traceTranslation(wordSource, totalTranslation);
+	}
+
+	/**
+	 * Adds the total translation of a source word to the trace, if traced
+	 *
+	 * @param wordSource
+	 *            the translated word
+	 * @param totalTranslation
+	 *            the translation or an empty String if nothing found
+	 */
+	private void traceTranslation(String wordSource, String totalTranslation) {
+		if (trace != null) {
+			trace.add(wordSource, totalTranslation);
+		}
+	}
+
+	/**
+	 * Starts the progress reports of the translation
+	 *
+	 * @param totalWords
+	 *            number of source words to translate, -1 if unknown
+	 * @return the reporter or null if no reports are configured
+	 */
+	private ProgressReporter startProgress(long totalWords) {
+		if (progressInterval <= 0) {
+			return null;
+		}
+		return new ProgressReporter(metrics, translationMemory, totalWords, progressInterval);
+	}
+
+	/**
+	 * Stops the progress reports of the translation
+	 *
+	 * @param progress
+	 *            the reporter or null if no reports are configured
+	 */
+	private void stopProgress(ProgressReporter progress) {
+		if (progress != null) {
+			progress.close();
+		}
+	}
+
+	/**
+	 * Opens the trace file. If it cannot be opened, the translation is not
+	 * traced
+	 *
+	 * @return the trace or null if no trace is configured
+	 */
+	private TranslationTrace openTrace() {
+		if (traceFile == null) {
+			return null;
+		}
+		try {
+			System.out.println("Tracing translations to: " + traceFile);
+			return new TranslationTrace(traceFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the number of threads which translate the source set
+	 *
+	 * @param parallelism
+	 *            number of threads, 1 for sequential translation
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Sets the time between two progress reports while translating
+	 *
+	 * @param progressInterval
+	 *            milliseconds between two reports, 0 for no reports
+	 */
+	public void setProgressInterval(long progressInterval) {
+		this.progressInterval = Math.max(0, progressInterval);
+	}
+
+	/**
+	 * Sets the file which receives the trace of every translated source word.
+	 * The trace is written in the background, the translation does not wait
+	 * for the file
+	 *
+	 * @param traceFile
+	 *            the trace file, null for no trace
+	 */
+	public void setTraceFile(File traceFile) {
+		this.traceFile = traceFile;
+	}
+
+	/**
+	 * Translates only the source words which are new since the previous run
+	 * of the same source and updates its output, see {@link IncrementalRun}.
+	 * Applies to the workflow, the pipeline and the scan of a source tree
+	 *
+	 * @param incremental
+	 *            true for incremental runs
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Sets the number of translations of the memory which are kept in the
+	 * heap, the others are read from the memory file
+	 *
+	 * @param memoryCacheCapacity
+	 *            number of cached translations
+	 */
+	public void setMemoryCacheCapacity(int memoryCacheCapacity) {
+		translationIO.setMemoryCacheCapacity(Math.max(1, memoryCacheCapacity));
+	}
+
 	/**
 	 * Calls IO component and its import functionality
 	 */
 	private void importFiles() {
 		System.out.println("Start importing files");
+		WorkflowMetrics.Stage stage = metrics.startStage("importFiles");
 
 		translationIO.importWordSource();
 		translationIO.importTranslationMaps();
 		translationIO.importMemoryMap();
 
 		translationSourceSet = translationIO.getTranslationSourceSet();
-		germanToEnglishTranslationMap = translationIO.getGermanToEnglischTranslationMap();
-		englishToGermanTranslationMap = translationIO.getEnglishToGermanTranslationMap();
-		memoryTranslationMap = translationIO.getAlreadyFoundTranslationMap();
+		translationDictionary = translationIO.getTranslationDictionary();
+		translationMemory = translationIO.getTranslationMemory();
+		splitMemory = translationIO.getSplitMemory();
+		translationService = new TranslationService(translator, wordProcessor, translationDictionary);
+		stage.end(translationDictionary.getEntryCount() + translationSourceSet.size());
 
-		System.out.println("Successfully imported translationFile? " + !germanToEnglishTranslationMap.isEmpty());
+		System.out.println("Successfully imported translationFile? " + !translationDictionary.isEmpty());
 		System.out.println("Successfully imported word source file? " + !translationSourceSet.isEmpty());
 		System.out.println("----------------------------------");
 	}
@@ -188,52 +877,23 @@ public class ProcessHandler {
 	 */
 	private void cleanSourceSet() {
 		System.out.println("Start cleaning source set");
-		// Remove words that contain only english words
+		WorkflowMetrics.Stage stage = metrics.startStage("cleanSourceSet");
+		int sourceWords = translationSourceSet.size();
+		Predicate<String> translatable = translationService::isTranslatable;
+		if (incrementalRun != null) {
+			translatable = incrementalRun.recordSkipped(translatable);
+		}
+		// Remove words that contain only english words and words with a result
+		// of the previous run
 		for (Iterator<String> i = translationSourceSet.iterator(); i.hasNext();) {
 			String wordSource = i.next();
-			if (!isTranslatable(wordSource)) {
+			if ((incrementalRun != null && incrementalRun.isKnown(wordSource)) || !translatable.test(wordSource)) {
 				i.remove();
 			}
 		}
+		stage.end(sourceWords);
 		System.out.println("End cleaning source set");
 		System.out.println("----------------------------------");
 	}
 
-	/**
-	 * The validation function. Takes word source and splits into word parts and
-	 * checks for every word part if it is translatable. If at least one part is
-	 * translatable, then whole word is translatable
-	 * 
-	 * @param wordSource
-	 * @return true if translatable and false if not
-	 */
-	private boolean isTranslatable(String wordSource) {
-		List<String> wordParts = null;
-		boolean isTranslatable = false;
-
-		// this returns at least the wordSource so that List has at least one
-		// element
-		wordParts = wordProcessor.getWordParts(wordSource);
-		for (String word : wordParts) {
-			isTranslatable = checkWordIsTranslatable(word);
-		}
-		return isTranslatable;
-	}
-
-	/**
-	 * The actual validation functionality. Takes word and tries to match with
-	 * English to German translation map in order to find out if it is a English word.
-	 * Also checks if word is digit.
-	 * 
-	 * @param word
-	 * @return true if no English word or Digit, otherwise false
-	 */
-	private boolean checkWordIsTranslatable(String word) {
-		if (!englishToGermanTranslationMap.containsKey(word.toLowerCase()) && !word.matches("\\d+")
-				&& !englishToGermanTranslationMap.containsKey("to " + word.toLowerCase())) {
-			return true;
-		}
-		return false;
-	}
-
 }
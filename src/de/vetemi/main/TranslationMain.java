@@ -1,16 +1,151 @@
 package de.vetemi.main;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Main class
+ * Main class. Takes an optional command ("compile", "compact-memory",
+ * "pipeline", "batch", "serve", "scan", "apply" or "translate", the default), the option
+ * --threads=N for translating in parallel, the option --memory-cache=N for
+ * the number of translations of the memory kept in the heap, the option
+ * --progress=N for the seconds between two progress reports (0 for none) and
+ * the option --trace=FILE for a trace of every translated word. The command "batch" takes
+ * a manifest or pairs of word source and output files, see {@link BatchJob}.
+ * The command "serve" starts the translation daemon on the port of the option
+ * --port=N, see {@link TranslationServer}. The command "scan" translates the
+ * names declared in the Java files of the given source directory instead of
+ * the word source file, see {@link de.vetemi.translation.IdentifierScanner}.
+ * The command "apply" renames the identifiers of the Java files of the given
+ * source directory with the translations of the output file, or writes the
+ * changes to the diff file of the option --diff=FILE, see
+ * {@link de.vetemi.translation.SourceRewriter}. The option --incremental
+ * translates only the source words which are new since the previous run, see
+ * {@link de.vetemi.translation.IncrementalRun}
  * 
  * @author Valmir Etemi
  *
  */
 public class TranslationMain {
 
-	public static void main(String[] args) {
+	/**
+	 * Option for the number of translating threads
+	 */
+	private static final String THREADS_OPTION = "--threads=";
+
+	/**
+	 * Option for the size of the in-heap translation memory cache
+	 */
+	private static final String MEMORY_CACHE_OPTION = "--memory-cache=";
+
+	/**
+	 * Option for the seconds between two progress reports
+	 */
+	private static final String PROGRESS_OPTION = "--progress=";
+
+	/**
+	 * Option for the file of the translation trace
+	 */
+	private static final String TRACE_OPTION = "--trace=";
+
+	/**
+	 * Option for the port of the translation server
+	 */
+	private static final String PORT_OPTION = "--port=";
+
+	/**
+	 * Option for the diff file of the apply command
+	 */
+	private static final String DIFF_OPTION = "--diff=";
+
+	/**
+	 * Option for translating only the words which are new since the previous
+	 * run
+	 */
+	private static final String INCREMENTAL_OPTION = "--incremental";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
 		ProcessHandler processHandler = new ProcessHandler();
-		processHandler.processTranslationWorkFlow();
+		int port = TranslationServer.DEFAULT_PORT;
+		File diffFile = null;
+		List<String> arguments = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith(THREADS_OPTION)) {
+				processHandler.setParallelism(Integer.parseInt(arg.substring(THREADS_OPTION.length())));
+			} else if (arg.startsWith(MEMORY_CACHE_OPTION)) {
+				processHandler
+						.setMemoryCacheCapacity(Integer.parseInt(arg.substring(MEMORY_CACHE_OPTION.length())));
+			} else if (arg.startsWith(PROGRESS_OPTION)) {
+				processHandler.setProgressInterval(
+						(long) (Double.parseDouble(arg.substring(PROGRESS_OPTION.length())) * 1000));
+			} else if (arg.startsWith(TRACE_OPTION)) {
+				processHandler.setTraceFile(new File(arg.substring(TRACE_OPTION.length())));
+			} else if (arg.startsWith(PORT_OPTION)) {
+				port = Integer.parseInt(arg.substring(PORT_OPTION.length()));
+			} else if (arg.equals(INCREMENTAL_OPTION)) {
+				processHandler.setIncremental(true);
+			} else if (arg.startsWith(DIFF_OPTION)) {
+				diffFile = new File(arg.substring(DIFF_OPTION.length()));
+			} else {
+				arguments.add(arg);
+			}
+		}
+		String command = arguments.isEmpty() ? "translate" : arguments.get(0);
+
+		if ("compile".equals(command)) {
+			processHandler.compileDictionary();
+		} else if ("compact-memory".equals(command)) {
+			processHandler.compactTranslationMemory();
+		} else if ("pipeline".equals(command)) {
+			processHandler.processTranslationPipeline();
+		} else if ("serve".equals(command)) {
+			TranslationServer server = new TranslationServer(processHandler, port);
+			server.start();
+			server.awaitStop();
+		} else if ("scan".equals(command)) {
+			if (arguments.size() != 2) {
+				System.out.println("Usage: scan <source directory>");
+			} else {
+				processHandler.processSourceTree(new File(arguments.get(1)));
+			}
+		} else if ("apply".equals(command)) {
+			if (arguments.size() != 2) {
+				System.out.println("Usage: apply <source directory> [--diff=FILE]");
+			} else {
+				processHandler.applyTranslations(new File(arguments.get(1)), diffFile);
+			}
+		} else if ("batch".equals(command)) {
+			List<BatchJob> jobs = readBatchJobs(arguments.subList(1, arguments.size()));
+			if (jobs == null) {
+				System.out.println(
+						"Usage: batch <manifest> | batch <word source> <output> [<word source> <output> ...]");
+			} else {
+				processHandler.processBatch(jobs);
+			}
+		} else {
+			processHandler.processTranslationWorkFlow();
+		}
+	}
+
+	/**
+	 * Reads the jobs of a batch either from a manifest or from pairs of word
+	 * source and output files
+	 *
+	 * @return the jobs or null if the arguments are neither
+	 */
+	private static List<BatchJob> readBatchJobs(List<String> files) throws IOException {
+		if (files.size() == 1) {
+			return BatchJob.readManifest(new File(files.get(0)));
+		}
+		if (files.isEmpty() || files.size() % 2 != 0) {
+			return null;
+		}
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		for (int i = 0; i < files.size(); i += 2) {
+			jobs.add(new BatchJob(new File(files.get(i)), new File(files.get(i + 1))));
+		}
+		return jobs;
 	}
 
 }
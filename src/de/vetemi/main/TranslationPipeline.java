@@ -0,0 +1,221 @@
+package de.vetemi.main;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import de.vetemi.translation.IWordSource;
+import de.vetemi.translation.TranslationOutputWriter;
+
+/**
+ * Streaming translation workflow. Reading, cleaning and translating and writing
+ * run as concurrent stages which are connected by bounded queues. A full queue
+ * blocks the stage in front of it, so only a bounded number of words is in
+ * flight and the first translations are written while the source is still
+ * being read.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationPipeline {
+
+	/**
+	 * Marks the end of the source words for a worker
+	 */
+	private static final String END_OF_SOURCE = new String("END_OF_SOURCE");
+
+	/**
+	 * Marks that a worker has finished
+	 */
+	private static final String[] END_OF_OUTPUT = new String[0];
+
+	/**
+	 * Translates a source word into its total translation or an empty String.
+	 * Returns null if the word needs no translation, like cleaning the source
+	 * set, so that the word is split into parts only once
+	 */
+	private final Function<String, String> sourceTranslator;
+
+	/**
+	 * Is called by the writer for every written translation
+	 */
+	private final BiConsumer<String, String> translationListener;
+
+	/**
+	 * Number of cleaning and translating threads
+	 */
+	private final int workerCount;
+
+	/**
+	 * Source words from the reader to the workers
+	 */
+	private final BlockingQueue<String> sourceQueue;
+
+	/**
+	 * Source word and translation pairs from the workers to the writer
+	 */
+	private final BlockingQueue<String[]> outputQueue;
+
+	/**
+	 * First failure of any stage
+	 */
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	/**
+	 * Threads of the reader and the workers, interrupted if a stage fails
+	 */
+	private Thread[] stageThreads;
+
+	private volatile int readCount;
+	private int writtenCount;
+
+	public TranslationPipeline(Function<String, String> sourceTranslator,
+			BiConsumer<String, String> translationListener, int workerCount, int queueCapacity) {
+		this.sourceTranslator = sourceTranslator;
+		this.translationListener = translationListener;
+		this.workerCount = Math.max(1, workerCount);
+		sourceQueue = new ArrayBlockingQueue<String>(queueCapacity);
+		outputQueue = new ArrayBlockingQueue<String[]>(queueCapacity);
+	}
+
+	/**
+	 * Runs all stages until the source is read completely and every
+	 * translation is written. The writer stage runs on the calling thread
+	 *
+	 * @param source
+	 *            reader of the distinct source words
+	 * @param output
+	 *            writer of the translations
+	 * @throws IOException
+	 *             if reading or writing fails
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted
+	 */
+	public void run(IWordSource source, TranslationOutputWriter output) throws IOException, InterruptedException {
+		stageThreads = new Thread[workerCount + 1];
+		stageThreads[0] = new Thread(() -> read(source), "pipeline-reader");
+		for (int i = 1; i <= workerCount; i++) {
+			stageThreads[i] = new Thread(this::translate, "pipeline-worker-" + i);
+		}
+		for (Thread thread : stageThreads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		try {
+			write(output);
+		} catch (InterruptedException e) {
+			fail(e);
+			throw e;
+		} catch (Throwable e) {
+			fail(e);
+		}
+		for (Thread thread : stageThreads) {
+			thread.join();
+		}
+
+		Throwable cause = failure.get();
+		if (cause instanceof IOException) {
+			throw (IOException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		} else if (cause != null) {
+			throw new IllegalStateException("Translation pipeline failed", cause);
+		}
+	}
+
+	/**
+	 * Reader stage. Passes every distinct word of the source to the workers
+	 */
+	private void read(IWordSource source) {
+		try {
+			String wordSource;
+			while ((wordSource = source.nextWord()) != null) {
+				sourceQueue.put(wordSource);
+				readCount++;
+			}
+			for (int i = 0; i < workerCount; i++) {
+				sourceQueue.put(END_OF_SOURCE);
+			}
+		} catch (InterruptedException e) {
+			// another stage failed
+		} catch (Throwable e) {
+			// e.g. a failing source, the other stages must not wait for it
+			fail(e);
+		}
+	}
+
+	/**
+	 * Worker stage. Cleans and translates the source words until the end of the
+	 * source
+	 */
+	private void translate() {
+		try {
+			String wordSource;
+			while ((wordSource = sourceQueue.take()) != END_OF_SOURCE) {
+				String translation = sourceTranslator.apply(wordSource);
+				if (translation != null) {
+					outputQueue.put(new String[] { wordSource, translation });
+				}
+			}
+			outputQueue.put(END_OF_OUTPUT);
+		} catch (InterruptedException e) {
+			// another stage failed
+		} catch (Throwable e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Writer stage. Writes the translations until all workers have finished.
+	 * Flushes the output whenever it has to wait for the workers
+	 */
+	private void write(TranslationOutputWriter output) throws IOException, InterruptedException {
+		int finishedWorkers = 0;
+		while (finishedWorkers < workerCount && failure.get() == null) {
+			String[] translation = outputQueue.poll();
+			if (translation == null) {
+				output.flush();
+				translation = outputQueue.take();
+			}
+			if (translation == END_OF_OUTPUT) {
+				finishedWorkers++;
+			} else {
+				output.write(translation[0], translation[1]);
+				translationListener.accept(translation[0], translation[1]);
+				writtenCount++;
+			}
+		}
+		output.flush();
+	}
+
+	/**
+	 * Records the first failure and stops all stages
+	 */
+	private void fail(Throwable cause) {
+		if (failure.compareAndSet(null, cause)) {
+			for (Thread thread : stageThreads) {
+				thread.interrupt();
+			}
+			// wake up the writer if it waits for the workers
+			outputQueue.clear();
+			outputQueue.offer(END_OF_OUTPUT);
+		}
+	}
+
+	/**
+	 * @return the number of distinct source words read
+	 */
+	public int getReadCount() {
+		return readCount;
+	}
+
+	/**
+	 * @return the number of written translations
+	 */
+	public int getWrittenCount() {
+		return writtenCount;
+	}
+}
@@ -0,0 +1,371 @@
+package de.vetemi.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.vetemi.metrics.LatencyHistogram;
+
+/**
+ * Translation daemon which keeps the dictionary, the memory and the word
+ * splitters of the ProcessHandler loaded and translates words on request. It
+ * listens on the loopback interface only:
+ * <ul>
+ * <li>POST /translate with one source word per line answers one
+ * "word;translation" line per word, the translation is empty if none is
+ * found</li>
+ * <li>GET /stats answers the number of requests, batches and the request
+ * latencies</li>
+ * <li>POST /shutdown stops the daemon</li>
+ * </ul>
+ * The requests of concurrent clients are coalesced: a single batcher takes
+ * all requests waiting at the moment and translates their distinct words
+ * once. No request waits for others to arrive, a batch simply grows while the
+ * previous one is translated. New translations are written to the memory
+ * files periodically and when the daemon stops.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationServer {
+
+	/**
+	 * Default port of the daemon
+	 */
+	public static final int DEFAULT_PORT = 8765;
+
+	/**
+	 * Seconds between two writes of the memory
+	 */
+	private final int FLUSH_INTERVAL_SECONDS = 10;
+
+	/**
+	 * Threads which receive requests and send responses
+	 */
+	private final int HANDLER_THREADS = 8;
+
+	/**
+	 * Maximum number of words of a batch, more requests wait for the next one
+	 */
+	private final int MAX_BATCH_WORDS = 10000;
+
+	/**
+	 * Separator of the source word and its translation in a response
+	 */
+	private final String SEPARATOR = ";";
+
+	/**
+	 * A translate request waiting for the batcher
+	 */
+	private static class Request {
+
+		private final List<String> words;
+		private final CompletableFuture<List<String>> translations = new CompletableFuture<List<String>>();
+
+		private Request(List<String> words) {
+			this.words = words;
+		}
+	}
+
+	/**
+	 * Marks the end of the requests for the batcher
+	 */
+	private static final Request END = new Request(new ArrayList<String>());
+
+	private final ProcessHandler processHandler;
+
+	private final int port;
+
+	private final BlockingQueue<Request> requests = new LinkedBlockingQueue<Request>();
+
+	private final LatencyHistogram requestLatencies = new LatencyHistogram();
+
+	private final LongAdder batches = new LongAdder();
+
+	private final LongAdder batchedWords = new LongAdder();
+
+	private final AtomicBoolean stopped = new AtomicBoolean();
+
+	private final CountDownLatch stoppedLatch = new CountDownLatch(1);
+
+	private HttpServer server;
+
+	private ExecutorService handlers;
+
+	private ScheduledExecutorService flusher;
+
+	private Thread batcher;
+
+	/**
+	 * @param processHandler
+	 *            translates the words, its state is loaded by start
+	 * @param port
+	 *            port on the loopback interface, 0 for any free port
+	 */
+	public TranslationServer(ProcessHandler processHandler, int port) {
+		this.processHandler = processHandler;
+		this.port = port;
+	}
+
+	/**
+	 * Loads the state of the process handler and starts listening
+	 *
+	 * @throws IOException
+	 *             if the port cannot be bound
+	 */
+	public void start() throws IOException {
+		processHandler.startService();
+
+		batcher = new Thread(this::translateBatches, "translation-batcher");
+		batcher.start();
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "memory-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(processHandler::flushMemory, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/translate", this::handleTranslate);
+		server.createContext("/stats", this::handleStats);
+		server.createContext("/shutdown", this::handleShutdown);
+		handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+		server.setExecutor(handlers);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "translation-server-shutdown"));
+		System.out.println("Translation server listening on http://" + server.getAddress().getHostString() + ":"
+				+ getPort());
+	}
+
+	/**
+	 * @return the port the daemon listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Waits until the daemon has stopped
+	 *
+	 * @throws InterruptedException
+	 *             if the waiting thread is interrupted
+	 */
+	public void awaitStop() throws InterruptedException {
+		stoppedLatch.await();
+	}
+
+	/**
+	 * Stops listening, answers the waiting requests, writes the memory and
+	 * prints the metrics. Only the first call stops, the others wait for it
+	 */
+	public void stop() {
+		boolean first;
+		synchronized (requests) {
+			first = !stopped.getAndSet(true);
+			if (first) {
+				// no request is accepted after the end
+				requests.add(END);
+			}
+		}
+		if (!first) {
+			try {
+				awaitStop();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return;
+		}
+		try {
+			server.stop(1);
+			handlers.shutdown();
+			batcher.join();
+			flusher.shutdown();
+			// a running flush must not overlap the export of the memory
+			flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			processHandler.stopService();
+			System.out.println(getStats());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			stoppedLatch.countDown();
+		}
+	}
+
+	/**
+	 * Batcher. Takes the waiting requests, translates their distinct words and
+	 * completes them until the end of the requests
+	 */
+	private void translateBatches() {
+		List<Request> batch = new ArrayList<Request>();
+		while (true) {
+			try {
+				batch.add(requests.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			int words = batch.get(0).words.size();
+			Request next;
+			while (words < MAX_BATCH_WORDS && (next = requests.poll()) != null) {
+				batch.add(next);
+				words += next.words.size();
+			}
+
+			boolean end = batch.remove(END);
+			translate(batch);
+			batch.clear();
+			if (end) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Translates the distinct words of the requests once and completes them.
+	 * If translating fails, the requests fail and the batcher goes on with the
+	 * next batch
+	 */
+	private void translate(List<Request> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		Map<String, String> translations = new LinkedHashMap<String, String>();
+		for (Request request : batch) {
+			for (String word : request.words) {
+				translations.put(word, null);
+			}
+		}
+		try {
+			List<String> words = new ArrayList<String>(translations.keySet());
+			List<String> translatedWords = processHandler.translateWords(words);
+			for (int i = 0; i < words.size(); i++) {
+				translations.put(words.get(i), translatedWords.get(i));
+			}
+		} catch (Throwable e) {
+			// also an Error, the handlers wait for their requests
+			for (Request request : batch) {
+				request.translations.completeExceptionally(e);
+			}
+			return;
+		}
+		batches.increment();
+		batchedWords.add(translations.size());
+		for (Request request : batch) {
+			List<String> requestTranslations = new ArrayList<String>(request.words.size());
+			for (String word : request.words) {
+				requestTranslations.add(translations.get(word));
+			}
+			request.translations.complete(requestTranslations);
+		}
+	}
+
+	private void handleTranslate(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use POST with one word per line\n");
+				return;
+			}
+			List<String> words = new ArrayList<String>();
+			BufferedReader bReader = new BufferedReader(
+					new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				line = line.trim();
+				if (!line.isEmpty()) {
+					words.add(line);
+				}
+			}
+
+			Request request = new Request(words);
+			boolean accepted;
+			synchronized (requests) {
+				accepted = !stopped.get();
+				if (accepted) {
+					requests.add(request);
+				}
+			}
+			if (!accepted) {
+				respond(exchange, 503, "Translation server is stopping\n");
+				return;
+			}
+			List<String> translations;
+			try {
+				translations = request.translations.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				respond(exchange, 503, "Translation interrupted\n");
+				return;
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+				respond(exchange, 500, "Translation failed: " + e.getCause() + "\n");
+				return;
+			}
+
+			StringBuilder response = new StringBuilder(words.size() * 32);
+			for (int i = 0; i < words.size(); i++) {
+				response.append(words.get(i)).append(SEPARATOR).append(translations.get(i)).append('\n');
+			}
+			respond(exchange, 200, response.toString());
+		} finally {
+			requestLatencies.record(System.nanoTime() - start);
+		}
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		respond(exchange, 200, getStats() + "\n");
+	}
+
+	private void handleShutdown(HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, "Use POST\n");
+			return;
+		}
+		respond(exchange, 200, "Stopping\n");
+		// the server waits for this exchange, so it is stopped by another
+		// thread
+		new Thread(this::stop, "translation-server-stop").start();
+	}
+
+	private void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(bytes);
+		}
+	}
+
+	/**
+	 * @return the requests, batches and request latencies as one line
+	 */
+	public String getStats() {
+		long batchCount = batches.sum();
+		return "Requests:" + requestLatencies.getCount() + " Batches:" + batchCount + " Words/batch:"
+				+ (batchCount == 0 ? 0 : batchedWords.sum() / batchCount) + " Latency us p50:"
+				+ requestLatencies.getPercentile(50) / 1000 + " p99:" + requestLatencies.getPercentile(99) / 1000
+				+ " max:" + requestLatencies.getMaxNanos() / 1000;
+	}
+}
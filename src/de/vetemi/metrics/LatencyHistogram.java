@@ -0,0 +1,115 @@
+package de.vetemi.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds. Every power of two is divided into
+ * eight buckets, so a percentile is exact to 12.5%. Recording is lock free
+ * and can be done by several threads.
+ *
+ * @author Valmir Etemi
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Number of buckets per power of two, as bits
+	 */
+	private final int SUB_BUCKET_BITS = 3;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records a latency
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		buckets.incrementAndGet(bucket(value));
+		count.increment();
+		totalNanos.add(value);
+		maxNanos.accumulate(value);
+	}
+
+	/**
+	 * Index of the bucket: the position of the highest bit and the next bits
+	 * below it
+	 */
+	private int bucket(long value) {
+		if (value < (1 << SUB_BUCKET_BITS)) {
+			return (int) value;
+		}
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+		return ((highestBit - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+
+	/**
+	 * Highest latency of the bucket
+	 */
+	private long bucketMax(int bucket) {
+		if (bucket < (1 << SUB_BUCKET_BITS)) {
+			return bucket;
+		}
+		int highestBit = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+		long start = (1L << highestBit) + (subBucket << (highestBit - SUB_BUCKET_BITS));
+		return start + (1L << (highestBit - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile between 0 and 100, e.g. 99
+	 * @return the latency in nanoseconds which the percentile of the recorded
+	 *         latencies does not exceed, 0 if nothing recorded
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		long[] counts = new long[buckets.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(bucketMax(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * @return the mean latency in nanoseconds, 0 if nothing recorded
+	 */
+	public long getMeanNanos() {
+		long recorded = getCount();
+		return recorded == 0 ? 0 : getTotalNanos() / recorded;
+	}
+}
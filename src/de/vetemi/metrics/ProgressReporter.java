@@ -0,0 +1,97 @@
+package de.vetemi.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import de.vetemi.translation.TranslationMemory;
+
+/**
+ * Prints the progress of the translation periodically from a background
+ * thread: translated source words, words per second, the estimated remaining
+ * time and the hit ratio of the translation memory. The translating threads
+ * only count their words in the workflow metrics, so reporting adds nothing
+ * to their work and prints at most one line per interval.
+ *
+ * @author Valmir Etemi
+ */
+public class ProgressReporter implements AutoCloseable {
+
+	private final WorkflowMetrics metrics;
+
+	private final TranslationMemory translationMemory;
+
+	/**
+	 * Number of source words to translate, -1 if unknown
+	 */
+	private final long totalWords;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final long start = System.nanoTime();
+
+	/**
+	 * Translated words at the start, the metrics may contain words of an
+	 * earlier stage
+	 */
+	private final long startWords;
+
+	/**
+	 * Starts reporting
+	 *
+	 * @param metrics
+	 *            the metrics which count the translated source words
+	 * @param translationMemory
+	 *            the translation memory
+	 * @param totalWords
+	 *            number of source words to translate, -1 if unknown
+	 * @param intervalMillis
+	 *            time between two reports in milliseconds
+	 */
+	public ProgressReporter(WorkflowMetrics metrics, TranslationMemory translationMemory, long totalWords,
+			long intervalMillis) {
+		this.metrics = metrics;
+		this.translationMemory = translationMemory;
+		this.totalWords = totalWords;
+		startWords = metrics.getWordLatencies().getCount();
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Prints the current progress
+	 */
+	private void report() {
+		long words = metrics.getWordLatencies().getCount() - startWords;
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long wordsPerSecond = seconds <= 0 ? 0 : (long) (words / seconds);
+
+		StringBuilder progress = new StringBuilder("Progress: ").append(words);
+		if (totalWords >= 0) {
+			progress.append('/').append(totalWords).append(" words (")
+					.append(totalWords == 0 ? 100 : words * 100 / totalWords).append("%)");
+		} else {
+			progress.append(" words");
+		}
+		progress.append(" Words/s:").append(wordsPerSecond);
+		if (totalWords >= 0 && wordsPerSecond > 0) {
+			progress.append(" ETA s:").append(Math.max(0, totalWords - words) / wordsPerSecond);
+		}
+		if (translationMemory != null) {
+			progress.append(" Memory hit ratio:").append(WorkflowMetrics.hitRatio(translationMemory));
+		}
+		System.out.println(progress);
+	}
+
+	/**
+	 * Stops reporting
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+}
@@ -0,0 +1,28 @@
+package de.vetemi.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a source word whose translation took longer than
+ * the threshold, 10 ms unless configured otherwise in the recording
+ * settings.
+ *
+ * @author Valmir Etemi
+ */
+@Name("de.vetemi.SlowWord")
+@Label("Slow Word Translation")
+@Category("CodeTranslator")
+@Description("Translation of a source word which took longer than the threshold")
+@Threshold("10 ms")
+public class SlowWordEvent extends jdk.jfr.Event {
+
+	@Label("Word")
+	public String word;
+
+	@Label("Translation")
+	public String translation;
+}
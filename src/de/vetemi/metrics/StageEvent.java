@@ -0,0 +1,26 @@
+package de.vetemi.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a stage of the translation workflow, e.g.
+ * importing the files or translating the source words.
+ *
+ * @author Valmir Etemi
+ */
+@Name("de.vetemi.Stage")
+@Label("Translation Stage")
+@Category("CodeTranslator")
+@Description("A stage of the translation workflow")
+public class StageEvent extends jdk.jfr.Event {
+
+	@Label("Stage")
+	public String stage;
+
+	@Label("Items")
+	@Description("Number of words or entries processed by the stage")
+	public long items;
+}
@@ -0,0 +1,135 @@
+package de.vetemi.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Trace of every translated source word, written to a file by a background
+ * thread. The translating threads only put their words into a queue, the
+ * writer takes them out in batches and flushes the file once per batch. If
+ * the writer falls behind by the capacity of the queue, the translating
+ * threads wait for it, so the trace is complete.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationTrace implements AutoCloseable {
+
+	/**
+	 * Capacity of the queue between the translating threads and the writer
+	 */
+	private final int QUEUE_CAPACITY = 16384;
+
+	/**
+	 * Maximum number of lines written per batch
+	 */
+	private final int BATCH_SIZE = 1024;
+
+	/**
+	 * Marks the end of the trace in the queue
+	 */
+	private static final String END = new String("end of trace");
+
+	private final BlockingQueue<String> lines = new ArrayBlockingQueue<String>(QUEUE_CAPACITY);
+
+	private final BufferedWriter bWriter;
+
+	private final Thread writer;
+
+	/**
+	 * Opens the trace file, an existing file is replaced
+	 *
+	 * @param traceFile
+	 *            the trace file
+	 * @throws IOException
+	 *             if the file cannot be created
+	 */
+	public TranslationTrace(File traceFile) throws IOException {
+		bWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceFile), "UTF-8"));
+		writer = new Thread(this::writeLines, "translation-trace");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Adds a translated source word to the trace
+	 *
+	 * @param wordSource
+	 *            the translated word
+	 * @param totalTranslation
+	 *            the translation or an empty String if nothing found
+	 */
+	public void add(String wordSource, String totalTranslation) {
+		String line = "Source: " + wordSource + "\tTranslation: "
+				+ (totalTranslation.isEmpty() ? "None" : totalTranslation);
+		try {
+			lines.put(line);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Tracing interrupted", e);
+		}
+	}
+
+	/**
+	 * Writes the lines of the queue in batches until the end of the trace. If
+	 * writing fails, the lines are still taken out of the queue, so that no
+	 * translating thread waits for the writer
+	 */
+	private void writeLines() {
+		List<String> batch = new ArrayList<String>(BATCH_SIZE);
+		boolean failed = false;
+		while (true) {
+			try {
+				batch.add(lines.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			lines.drainTo(batch, BATCH_SIZE - 1);
+			// the end is put last, when all words have been added
+			boolean end = batch.get(batch.size() - 1) == END;
+			if (!failed) {
+				try {
+					for (String line : batch) {
+						if (line != END) {
+							bWriter.write(line);
+							bWriter.newLine();
+						}
+					}
+					bWriter.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+					failed = true;
+				}
+			}
+			if (end) {
+				return;
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes the remaining lines and closes the trace file
+	 *
+	 * @throws IOException
+	 *             if closing fails
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			lines.put(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			bWriter.close();
+		}
+	}
+}
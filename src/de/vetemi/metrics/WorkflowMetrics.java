@@ -0,0 +1,203 @@
+package de.vetemi.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.vetemi.translation.TranslationMemory;
+import de.vetemi.translation.TranslationStatistics;
+
+/**
+ * Metrics of a run of the translation workflow: time, processed items and
+ * rate of every stage, the latencies of the translated source words and the
+ * hit ratios of the memories. Every stage and every slow source word is also
+ * committed as flight recorder event, see {@link StageEvent} and
+ * {@link SlowWordEvent}, so a run can be profiled with
+ * -XX:StartFlightRecording.
+ *
+ * @author Valmir Etemi
+ */
+public class WorkflowMetrics {
+
+	/**
+	 * A stage of the workflow, started by {@link WorkflowMetrics#startStage}
+	 */
+	public class Stage {
+
+		private final String name;
+		private final StageEvent event = new StageEvent();
+		private final long start;
+		private long nanos = -1;
+		private long items;
+
+		private Stage(String name) {
+			this.name = name;
+			event.begin();
+			start = System.nanoTime();
+		}
+
+		/**
+		 * Ends the stage and records it
+		 *
+		 * @param items
+		 *            number of words or entries processed by the stage
+		 */
+		public void end(long items) {
+			nanos = System.nanoTime() - start;
+			this.items = items;
+			event.end();
+			if (event.shouldCommit()) {
+				event.stage = name;
+				event.items = items;
+				event.commit();
+			}
+			synchronized (stages) {
+				stages.add(this);
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getItems() {
+			return items;
+		}
+
+		/**
+		 * @return the time of the stage in nanoseconds, -1 if not ended
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		/**
+		 * @return the processed items per second
+		 */
+		public long getRate() {
+			return nanos <= 0 ? 0 : items * 1000000000L / nanos;
+		}
+	}
+
+	/**
+	 * The ended stages in the order of their end
+	 */
+	private final List<Stage> stages = new ArrayList<Stage>();
+
+	/**
+	 * Time it took to translate every source word
+	 */
+	private final LatencyHistogram wordLatencies = new LatencyHistogram();
+
+	/**
+	 * Source words with a translation
+	 */
+	private final LongAdder translatedWords = new LongAdder();
+
+	/**
+	 * Starts a stage of the workflow
+	 *
+	 * @param name
+	 *            name of the stage, e.g. "translate"
+	 * @return the stage, to be ended when the stage is done
+	 */
+	public Stage startStage(String name) {
+		return new Stage(name);
+	}
+
+	/**
+	 * Starts the recording of the translation of a source word
+	 *
+	 * @return the event, to be passed to {@link #endWord}
+	 */
+	public SlowWordEvent startWord() {
+		SlowWordEvent event = new SlowWordEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Records the translation of a source word. Commits the flight recorder
+	 * event if the word was slow
+	 *
+	 * @param event
+	 *            the event returned by {@link #startWord}
+	 * @param nanos
+	 *            time of the translation in nanoseconds
+	 * @param word
+	 *            the source word
+	 * @param translation
+	 *            the translation or an empty String if nothing found
+	 */
+	public void endWord(SlowWordEvent event, long nanos, String word, String translation) {
+		wordLatencies.record(nanos);
+		if (!translation.isEmpty()) {
+			translatedWords.increment();
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.word = word;
+			event.translation = translation;
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return the ended stages in the order of their end
+	 */
+	public List<Stage> getStages() {
+		synchronized (stages) {
+			return Collections.unmodifiableList(new ArrayList<Stage>(stages));
+		}
+	}
+
+	public LatencyHistogram getWordLatencies() {
+		return wordLatencies;
+	}
+
+	public long getTranslatedWords() {
+		return translatedWords.sum();
+	}
+
+	/**
+	 * Prints the metrics of the stages, the source words, the memories and the
+	 * translator
+	 *
+	 * @param translationMemory
+	 *            the translation memory of the run
+	 * @param splitMemory
+	 *            the split memory of the run
+	 * @param statistics
+	 *            the statistics of the translator
+	 */
+	public void print(TranslationMemory translationMemory, TranslationMemory splitMemory,
+			TranslationStatistics statistics) {
+		System.out.println("Workflow metrics");
+		for (Stage stage : getStages()) {
+			System.out.println("Stage " + stage.getName() + " --> Time: " + stage.getNanos() / 1000000 + " Items:"
+					+ stage.getItems() + " Items/s:" + stage.getRate());
+		}
+		System.out.println("Source words:" + wordLatencies.getCount() + " Translated:" + getTranslatedWords()
+				+ " Latency us mean:" + wordLatencies.getMeanNanos() / 1000 + " p50:"
+				+ wordLatencies.getPercentile(50) / 1000 + " p99:" + wordLatencies.getPercentile(99) / 1000
+				+ " max:" + wordLatencies.getMaxNanos() / 1000);
+		if (translationMemory != null) {
+			System.out.println("Translation memory hit ratio:" + hitRatio(translationMemory));
+		}
+		if (splitMemory != null) {
+			System.out.println("Split memory hit ratio:" + hitRatio(splitMemory));
+		}
+		System.out.println(statistics);
+	}
+
+	/**
+	 * Share of the memory requests answered from the cache or the memory file
+	 */
+	static String hitRatio(TranslationMemory memory) {
+		long hits = memory.getCacheHits() + memory.getDiskHits();
+		long requests = hits + memory.getMisses();
+		return requests == 0 ? "-" : String.format(Locale.ROOT, "%.3f", (double) hits / requests);
+	}
+}
@@ -1,7 +1,5 @@
 package de.vetemi.translation;
 
-import java.util.HashMap;
-
 import de.vetemi.wordprocessing.IWordProcessor;
 
 /**
@@ -17,15 +15,28 @@ public abstract class AbstractTranslator {
 	protected IWordProcessor wordProcessor;
 
 	/**
-	 * Contains the imported translation file as German to English
+	 * Contains the imported translation file as index over the cleaned German
+	 * key tokens
+	 */
+	protected ITranslationDictionary translationDictionary;
+
+	/**
+	 * Memory which contains already translated words as well as words which do
+	 * not have a translation. Makes access more efficient. Is concurrent, so
+	 * that one translator can be used by several threads
 	 */
-	protected HashMap<String, String> translationMap;
+	protected TranslationMemory translationMemory;
 
 	/**
-	 * Map which contains already translated words as well as words which do not
-	 * have a translation. Makes access more efficient
+	 * Memory which contains the parts of already decompounded words, for
+	 * translators which split German compositions
 	 */
-	protected HashMap<String, String> memoryMap;
+	protected TranslationMemory splitMemory;
+
+	/**
+	 * Counts how the words have been translated
+	 */
+	protected final TranslationStatistics statistics = new TranslationStatistics();
 
 	/**
 	 * Translates word source and returns if translation available, null if
@@ -37,18 +48,40 @@ public abstract class AbstractTranslator {
 	 */
 	public abstract String translate(String wordSource);
 
+	/**
+	 * Translates word source like {@link #translate(String)} and tells where
+	 * the translation has been found. Translators which do not know where
+	 * their translations come from report the dictionary
+	 * 
+	 * @param wordSource
+	 * @return the translation of the word source
+	 */
+	public PartTranslation translatePart(String wordSource) {
+		String translation = translate(wordSource);
+		return new PartTranslation(wordSource, translation, translation == null || translation.isEmpty()
+				? TranslationSource.NONE : TranslationSource.DICTIONARY);
+	}
 
 	public AbstractTranslator(IWordProcessor wordProcessor) {
 		this.wordProcessor = wordProcessor;
-		memoryMap = new HashMap<String, String>();
+		translationMemory = new TranslationMemory();
+		splitMemory = new TranslationMemory();
 	}
 	
-	public void setTranslationMap(HashMap<String, String> translationMap) {
-		this.translationMap = translationMap;
+	public void setTranslationDictionary(ITranslationDictionary translationDictionary) {
+		this.translationDictionary = translationDictionary;
+	}
+
+	public void setTranslationMemory(TranslationMemory translationMemory) {
+		this.translationMemory = translationMemory;
+	}
+
+	public void setSplitMemory(TranslationMemory splitMemory) {
+		this.splitMemory = splitMemory;
 	}
 
-	public void setAlreadyTranslatedMap(HashMap<String, String> alreadyTranslatedMap) {
-		this.memoryMap = alreadyTranslatedMap;
+	public TranslationStatistics getStatistics() {
+		return statistics;
 	}
 
 }
@@ -0,0 +1,111 @@
+package de.vetemi.translation;
+
+/**
+ * Probabilistic set of Strings with a fixed memory size. Answers "definitely
+ * not contained" or "possibly contained"; the probability of a wrong "possibly
+ * contained" is given when sizing the filter.
+ *
+ * @author Valmir Etemi
+ */
+public class BloomFilter {
+
+	/**
+	 * The bit array
+	 */
+	private final long[] bits;
+
+	/**
+	 * Number of bits
+	 */
+	private final long bitCount;
+
+	/**
+	 * Number of bits set per word
+	 */
+	private final int hashCount;
+
+	/**
+	 * Sizes the filter for the expected number of words and the accepted false
+	 * positive probability
+	 *
+	 * @param expectedWords
+	 *            number of words which will be added
+	 * @param falsePositiveProbability
+	 *            probability of a wrong "possibly contained", e.g. 0.01
+	 */
+	public BloomFilter(long expectedWords, double falsePositiveProbability) {
+		long optimalBits = (long) Math.ceil(
+				-Math.max(expectedWords, 1) * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		bits = new long[(int) Math.min((optimalBits + 63) / 64, Integer.MAX_VALUE - 8)];
+		bitCount = bits.length * 64L;
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedWords, 1) * Math.log(2)));
+	}
+
+	/**
+	 * Adds the word to the filter
+	 *
+	 * @param word
+	 *            the word to add
+	 * @return true if the word was definitely not contained before
+	 */
+	public boolean put(String word) {
+		long hash = hash64(word);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		boolean changed = false;
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+			long mask = 1L << bit;
+			int index = (int) (bit >>> 6);
+			if ((bits[index] & mask) == 0) {
+				bits[index] |= mask;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Checks if the word may have been added
+	 *
+	 * @param word
+	 *            the word to check
+	 * @return false if the word has definitely not been added, true if it
+	 *         possibly has been added
+	 */
+	public boolean mightContain(String word) {
+		long hash = hash64(word);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the size of the bit array in bytes
+	 */
+	public long getSizeInBytes() {
+		return bits.length * 8L;
+	}
+
+	/**
+	 * 64 bit FNV-1a hash over the characters of the word
+	 */
+	private static long hash64(String word) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < word.length(); i++) {
+			hash ^= word.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		// spread the bits of the last characters over the whole value
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,549 @@
+package de.vetemi.translation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translation dictionary which is read directly from a memory mapped, compiled
+ * snapshot of the translation file. The snapshot contains the normalized
+ * entries, the hash table and the trie over the German key tokens and the
+ * English lexicon, so that a run does not need to parse and clean the
+ * translation file again.
+ * <p>
+ * Layout: a fixed size header, the value tokens of every entry, the German key
+ * records, the open addressing hash table which points to the German key
+ * records, the English lexicon and the key trie whose keys are the offsets of
+ * the German key records. A German key record contains the folded key
+ * token, its spellings (umlaut variants), the offsets of its entries, each
+ * with the index of the spelling the entry contains, and the ranked
+ * translations precomputed per spelling and for all spellings together. All
+ * offsets are absolute positions in the file.
+ *
+ * @author Valmir Etemi
+ */
+public class CompiledDictionary implements ITranslationDictionary {
+
+	/**
+	 * Marks a file as compiled dictionary ("CTDC")
+	 */
+	private static final int MAGIC = 0x43544443;
+
+	/**
+	 * Version of the layout and of the cleaning rules. Snapshots of another
+	 * version are compiled again
+	 */
+	private static final int FORMAT_VERSION = 6;
+
+	/**
+	 * Size of the header in bytes
+	 */
+	private static final int HEADER_SIZE = 64;
+
+	/**
+	 * The mapped snapshot. Only absolute reads are used, so that it can be
+	 * shared between threads
+	 */
+	private final ByteBuffer buffer;
+
+	private final int entryCount;
+	private final int germanTokenCount;
+	private final int germanTableOffset;
+	private final int germanTableSize;
+
+	/**
+	 * The English values, read directly from the snapshot
+	 */
+	private final EnglishLexicon englishLexicon;
+
+	/**
+	 * The trie over the German key tokens, read directly from the snapshot
+	 */
+	private final KeyTrie keyTrie;
+
+	private CompiledDictionary(ByteBuffer buffer) {
+		this.buffer = buffer;
+		entryCount = buffer.getInt(24);
+		germanTokenCount = buffer.getInt(28);
+		germanTableOffset = buffer.getInt(32);
+		germanTableSize = buffer.getInt(36);
+		int englishWordCount = buffer.getInt(40);
+		int englishOffsetsOffset = buffer.getInt(44);
+		int englishCharsOffset = buffer.getInt(48);
+		englishLexicon = new EnglishLexicon(
+				slice(englishCharsOffset, buffer.getInt(englishOffsetsOffset + englishWordCount * 4) * 2)
+						.asCharBuffer(),
+				slice(englishOffsetsOffset, (englishWordCount + 1) * 4).asIntBuffer());
+		int trieNodeCount = buffer.getInt(52);
+		int trieOffset = buffer.getInt(56);
+		int trieKeysOffset = trieOffset + (trieNodeCount + 1) * 4;
+		int trieLabelsOffset = trieKeysOffset + trieNodeCount * 4;
+		keyTrie = new KeyTrie(slice(trieLabelsOffset, trieNodeCount * 2).asCharBuffer(),
+				slice(trieOffset, (trieNodeCount + 1) * 4).asIntBuffer(),
+				slice(trieKeysOffset, trieNodeCount * 4).asIntBuffer());
+	}
+
+	/**
+	 * Returns a view of the given bytes of the snapshot
+	 */
+	private ByteBuffer slice(int offset, int length) {
+		ByteBuffer view = buffer.duplicate();
+		((Buffer) view).position(offset);
+		((Buffer) view).limit(offset + length);
+		return view.slice();
+	}
+
+	/**
+	 * Memory maps the compiled dictionary if it is up to date. The header is
+	 * checked first, so that an outdated snapshot is never mapped: a mapped
+	 * file cannot be replaced by the new snapshot on Windows
+	 *
+	 * @param dictionaryFile
+	 *            the compiled dictionary file
+	 * @param sourceFile
+	 *            the translation file, only compared if it exists
+	 * @return the dictionary or null if the file is no compiled dictionary of
+	 *         the current version or has not been compiled from the current
+	 *         state of the translation file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static CompiledDictionary open(File dictionaryFile, File sourceFile) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(dictionaryFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) {
+					return null;
+				}
+			}
+			if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+				return null;
+			}
+			if (sourceFile.exists()
+					&& (sourceFile.length() != header.getLong(8) || sourceFile.lastModified() != header.getLong(16))) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new CompiledDictionary(buffer);
+		} finally {
+			// the mapping stays valid after closing the file
+			file.close();
+		}
+	}
+
+	@Override
+	public List<String[]> getValueTokens(String foldedWord, String word) {
+		int recordOffset = findRecord(germanTableOffset, germanTableSize, foldedWord);
+		if (recordOffset == 0) {
+			return Collections.emptyList();
+		}
+		return getValueTokens(recordOffset, word);
+	}
+
+	/**
+	 * Returns the value tokens of the entries of the German key record at the
+	 * given offset, the key of the token in the key trie
+	 */
+	@Override
+	public List<String[]> getValueTokens(int recordOffset, String word) {
+		ByteBuffer reader = buffer.duplicate();
+		int position = recordOffset + 2 + (buffer.getShort(recordOffset) & 0xFFFF);
+
+		// prefer the entries with exactly this spelling
+		int exactVariant = findVariant(position, word);
+		position = skipStrings(position + 1, buffer.get(position) & 0xFF);
+
+		int postingCount = buffer.getInt(position);
+		position += 4;
+		List<String[]> valueTokens = new ArrayList<String[]>(postingCount);
+		for (int i = 0; i < postingCount; i++, position += 5) {
+			if (exactVariant >= 0 && (buffer.get(position + 4) & 0xFF) != exactVariant) {
+				continue;
+			}
+			int entryOffset = buffer.getInt(position);
+			String[] tokens = new String[buffer.get(entryOffset)];
+			int tokenOffset = entryOffset + 1;
+			for (int j = 0; j < tokens.length; j++) {
+				int length = buffer.getShort(tokenOffset) & 0xFFFF;
+				tokens[j] = readString(reader, tokenOffset + 2, length);
+				tokenOffset += 2 + length;
+			}
+			valueTokens.add(tokens);
+		}
+		return valueTokens;
+	}
+
+	@Override
+	public String[] getTranslations(String foldedWord, String word) {
+		int recordOffset = findRecord(germanTableOffset, germanTableSize, foldedWord);
+		if (recordOffset == 0) {
+			return new String[0];
+		}
+		return getTranslations(recordOffset, word);
+	}
+
+	/**
+	 * Reads the precomputed translations of the German key record at the
+	 * given offset, the key of the token in the key trie
+	 */
+	@Override
+	public String[] getTranslations(int recordOffset, String word) {
+		int position = recordOffset + 2 + (buffer.getShort(recordOffset) & 0xFFFF);
+
+		// the translations of exactly this spelling or of all spellings
+		int variantCount = buffer.get(position) & 0xFF;
+		int exactVariant = findVariant(position, word);
+		position = skipStrings(position + 1, variantCount);
+		position += 4 + buffer.getInt(position) * 5;
+		for (int i = exactVariant >= 0 ? exactVariant : variantCount; i > 0; i--) {
+			position = skipStrings(position + 1, buffer.get(position) & 0xFF);
+		}
+
+		ByteBuffer reader = buffer.duplicate();
+		String[] translations = new String[buffer.get(position++) & 0xFF];
+		for (int i = 0; i < translations.length; i++) {
+			int length = buffer.getShort(position) & 0xFFFF;
+			translations[i] = readString(reader, position + 2, length);
+			position += 2 + length;
+		}
+		return translations;
+	}
+
+	/**
+	 * Returns the index of the spelling of a German key record which equals
+	 * the word
+	 *
+	 * @param position
+	 *            position of the spelling count
+	 * @return the index or -1 if no spelling equals the word
+	 */
+	private int findVariant(int position, String word) {
+		byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+		int variantCount = buffer.get(position++) & 0xFF;
+		for (int i = 0; i < variantCount; i++) {
+			if (keyEquals(position, wordBytes)) {
+				return i;
+			}
+			position += 2 + (buffer.getShort(position) & 0xFFFF);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the position behind the given number of Strings
+	 */
+	private int skipStrings(int position, int count) {
+		for (int i = 0; i < count; i++) {
+			position += 2 + (buffer.getShort(position) & 0xFFFF);
+		}
+		return position;
+	}
+
+	@Override
+	public boolean containsSpelling(String foldedWord, String word) {
+		int recordOffset = findRecord(germanTableOffset, germanTableSize, foldedWord);
+		if (recordOffset == 0) {
+			return false;
+		}
+		return findVariant(recordOffset + 2 + (buffer.getShort(recordOffset) & 0xFFFF), word) >= 0;
+	}
+
+	@Override
+	public boolean containsEnglishWord(CharSequence word) {
+		return englishLexicon.contains(word);
+	}
+
+	@Override
+	public KeyTrie getKeyTrie() {
+		return keyTrie;
+	}
+
+	@Override
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public int size() {
+		return germanTokenCount;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return entryCount == 0;
+	}
+
+	/**
+	 * @return the number of words of the English lexicon
+	 */
+	public int getEnglishWordCount() {
+		return englishLexicon.size();
+	}
+
+	/**
+	 * Probes the hash table for the record of the given key. Every record
+	 * starts with its key
+	 *
+	 * @return offset of the record or 0 if not contained
+	 */
+	private int findRecord(int tableOffset, int tableSize, String key) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int mask = tableSize - 1;
+		int bucket = hash(key) & mask;
+		while (true) {
+			int recordOffset = buffer.getInt(tableOffset + bucket * 4);
+			if (recordOffset == 0 || keyEquals(recordOffset, keyBytes)) {
+				return recordOffset;
+			}
+			bucket = (bucket + 1) & mask;
+		}
+	}
+
+	/**
+	 * Compares the String at the given offset with the key
+	 */
+	private boolean keyEquals(int offset, byte[] keyBytes) {
+		if ((buffer.getShort(offset) & 0xFFFF) != keyBytes.length) {
+			return false;
+		}
+		for (int i = 0; i < keyBytes.length; i++) {
+			if (buffer.get(offset + 2 + i) != keyBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String readString(ByteBuffer reader, int offset, int length) {
+		byte[] bytes = new byte[length];
+		((Buffer) reader).position(offset);
+		reader.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Writes the imported index as compiled dictionary. The file is written
+	 * next to the target and moved afterwards, so that a running translation
+	 * never maps a half written snapshot.
+	 *
+	 * @param index
+	 *            the imported translation index
+	 * @param sourceFile
+	 *            the translation file the index was imported from
+	 * @param dictionaryFile
+	 *            the target file
+	 * @throws IOException
+	 *             if the snapshot cannot be written or gets larger than 2 GB
+	 */
+	public static void compile(TranslationIndex index, File sourceFile, File dictionaryFile) throws IOException {
+		File tempFile = new File(dictionaryFile.getPath() + ".tmp");
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+		try {
+			output.write(new byte[HEADER_SIZE]);
+
+			// value tokens of every entry
+			Map<DictionaryEntry, Integer> entryOffsets = new IdentityHashMap<DictionaryEntry, Integer>();
+			for (DictionaryEntry entry : index.getEntries()) {
+				entryOffsets.put(entry, checkedOffset(output));
+				output.writeByte(entry.getValueTokens().length);
+				for (String token : entry.getValueTokens()) {
+					writeString(output, token);
+				}
+			}
+
+			// German key records with their spellings and the offsets of
+			// their entries
+			Map<String, List<DictionaryEntry>> tokenIndex = index.getTokenIndex();
+			String[] germanKeys = new String[tokenIndex.size()];
+			int[] germanOffsets = new int[germanKeys.length];
+			int i = 0;
+			for (Map.Entry<String, List<DictionaryEntry>> token : tokenIndex.entrySet()) {
+				germanKeys[i] = token.getKey();
+				germanOffsets[i++] = checkedOffset(output);
+				writeString(output, token.getKey());
+
+				List<String> variants = new ArrayList<String>(1);
+				int[] entryVariants = new int[token.getValue().size()];
+				int j = 0;
+				for (DictionaryEntry entry : token.getValue()) {
+					String variant = entry.getKeyVariant(token.getKey());
+					int variantIndex = variants.indexOf(variant);
+					if (variantIndex < 0) {
+						variantIndex = variants.size();
+						variants.add(variant);
+					}
+					entryVariants[j++] = variantIndex;
+				}
+				if (variants.size() > 0xFF) {
+					throw new IOException("Too many spellings for compiled dictionary: " + token.getKey());
+				}
+				output.writeByte(variants.size());
+				for (String variant : variants) {
+					writeString(output, variant);
+				}
+
+				output.writeInt(token.getValue().size());
+				j = 0;
+				for (DictionaryEntry entry : token.getValue()) {
+					output.writeInt(entryOffsets.get(entry));
+					output.writeByte(entryVariants[j++]);
+				}
+
+				// ranked translations per spelling and of all spellings
+				for (int variant = 0; variant <= variants.size(); variant++) {
+					List<String[]> valueTokens = new ArrayList<String[]>();
+					j = 0;
+					for (DictionaryEntry entry : token.getValue()) {
+						if (variant == variants.size() || entryVariants[j] == variant) {
+							valueTokens.add(entry.getValueTokens());
+						}
+						j++;
+					}
+					String[] translations = TranslationRanking.rank(valueTokens,
+							TranslationRanking.TOP_TRANSLATIONS);
+					output.writeByte(translations.length);
+					for (String translation : translations) {
+						writeString(output, translation);
+					}
+				}
+			}
+
+			// the table is aligned, so are the int and char views of the
+			// lexicon behind it
+			while (output.size() % 4 != 0) {
+				output.writeByte(0);
+			}
+			int germanTableOffset = checkedOffset(output);
+			int germanTableSize = writeTable(output, germanKeys, germanOffsets);
+
+			EnglishLexicon englishLexicon = index.getEnglishLexicon();
+			int englishOffsetsOffset = checkedOffset(output);
+			int englishCharsOffset = englishOffsetsOffset + (englishLexicon.size() + 1) * 4;
+			englishLexicon.write(output);
+
+			// key trie over the sorted German key tokens, the record offsets
+			// as keys
+			while (output.size() % 4 != 0) {
+				output.writeByte(0);
+			}
+			String[] sortedKeys = germanKeys.clone();
+			Arrays.sort(sortedKeys);
+			Map<String, Integer> keyOffsets = new HashMap<String, Integer>(germanKeys.length * 2);
+			for (i = 0; i < germanKeys.length; i++) {
+				keyOffsets.put(germanKeys[i], germanOffsets[i]);
+			}
+			int[] sortedOffsets = new int[sortedKeys.length];
+			for (i = 0; i < sortedKeys.length; i++) {
+				sortedOffsets[i] = keyOffsets.get(sortedKeys[i]);
+			}
+			KeyTrie keyTrie = KeyTrie.build(sortedKeys, sortedOffsets);
+			int trieOffset = checkedOffset(output);
+			keyTrie.write(output);
+			checkedOffset(output);
+			output.close();
+
+			RandomAccessFile header = new RandomAccessFile(tempFile, "rw");
+			try {
+				header.writeInt(MAGIC);
+				header.writeInt(FORMAT_VERSION);
+				header.writeLong(sourceFile.length());
+				header.writeLong(sourceFile.lastModified());
+				header.writeInt(index.getEntryCount());
+				header.writeInt(germanKeys.length);
+				header.writeInt(germanTableOffset);
+				header.writeInt(germanTableSize);
+				header.writeInt(englishLexicon.size());
+				header.writeInt(englishOffsetsOffset);
+				header.writeInt(englishCharsOffset);
+				header.writeInt(keyTrie.getNodeCount());
+				header.writeInt(trieOffset);
+			} finally {
+				header.close();
+			}
+		} finally {
+			output.close();
+		}
+
+		try {
+			Files.move(tempFile.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Writes an open addressing hash table with linear probing over the given
+	 * record offsets
+	 *
+	 * @return the number of buckets
+	 */
+	private static int writeTable(DataOutputStream output, String[] keys, int[] offsets) throws IOException {
+		int tableSize = Integer.highestOneBit(Math.max(keys.length, 1)) << 2;
+		int mask = tableSize - 1;
+		int[] table = new int[tableSize];
+		for (int i = 0; i < keys.length; i++) {
+			int bucket = hash(keys[i]) & mask;
+			while (table[bucket] != 0) {
+				bucket = (bucket + 1) & mask;
+			}
+			table[bucket] = offsets[i];
+		}
+		for (int offset : table) {
+			output.writeInt(offset);
+		}
+		return tableSize;
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IOException("Word too long for compiled dictionary: " + value.substring(0, 40));
+		}
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Returns the current position of the output. Offsets are stored as int,
+	 * so the snapshot must stay smaller than 2 GB
+	 */
+	private static int checkedOffset(DataOutputStream output) throws IOException {
+		int offset = output.size();
+		if (offset == Integer.MAX_VALUE) {
+			throw new IOException("Compiled dictionary exceeds 2 GB");
+		}
+		return offset;
+	}
+}
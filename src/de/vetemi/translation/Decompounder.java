@@ -0,0 +1,173 @@
+package de.vetemi.translation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.vetemi.wordprocessing.IWordProcessor;
+
+/**
+ * Splits German compositions into key tokens of the dictionary, e.g.
+ * "Rechnungsbetrag" -> "Rechnung", "Betrag". Walks the key trie from every
+ * position of the folded word and picks the split with the fewest parts by
+ * dynamic programming, among those the one with the longest parts. The
+ * linking elements "s", "n" and "es" (Fugenelemente) may follow a part. As
+ * every part is a key token, the split also yields the dictionary keys for
+ * translating the parts.
+ * <p>
+ * Can be shared by several translating threads.
+ *
+ * @author Valmir Etemi
+ */
+public class Decompounder {
+
+	/**
+	 * Linking elements which may be put between the parts
+	 */
+	private final String[] LINKING_ELEMENTS = { "s", "n", "es" };
+
+	/**
+	 * Minimum length of a part, shorter key tokens are rather abbreviations
+	 */
+	private final int MIN_PART_LENGTH = DictTranslator.MIN_WORD_TO_TRANS_LENGTH;
+
+	/**
+	 * Trie over the folded key tokens of the dictionary
+	 */
+	private final KeyTrie keyTrie;
+
+	/**
+	 * Folds the characters like the dictionary keys
+	 */
+	private final IWordProcessor wordProcessor;
+
+	/**
+	 * A part of a split composition
+	 */
+	public static class Part {
+
+		private final String word;
+		private final int key;
+
+		Part(String word, int key) {
+			this.word = word;
+			this.key = key;
+		}
+
+		/**
+		 * @return the part as written in the composition
+		 */
+		public String getWord() {
+			return word;
+		}
+
+		/**
+		 * @return the dictionary key of the part
+		 */
+		public int getKey() {
+			return key;
+		}
+	}
+
+	public Decompounder(KeyTrie keyTrie, IWordProcessor wordProcessor) {
+		this.keyTrie = keyTrie;
+		this.wordProcessor = wordProcessor;
+	}
+
+	/**
+	 * Splits the word into key tokens
+	 *
+	 * @param word
+	 *            the composition
+	 * @return the parts or null if the word cannot be split into at least two
+	 *         key tokens
+	 */
+	public List<Part> split(String word) {
+		// fold the word and remember where every folded character came from
+		StringBuilder folded = new StringBuilder(word.length() + 4);
+		int[] origins = new int[word.length() * 2 + 1];
+		boolean[] boundaries = new boolean[word.length() * 2 + 1];
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			boundaries[folded.length()] = true;
+			if (c < 0x80) {
+				origins[folded.length()] = i;
+				folded.append(Character.toLowerCase(c));
+			} else {
+				String foldedChar = wordProcessor.foldWord(String.valueOf(c));
+				for (int j = 0; j < foldedChar.length(); j++) {
+					origins[folded.length()] = i;
+					folded.append(foldedChar.charAt(j));
+				}
+			}
+		}
+		String foldedWord = folded.toString();
+		int length = foldedWord.length();
+		origins[length] = word.length();
+		boundaries[length] = true;
+
+		// per start position: fewest parts to the end, sum of the squared
+		// part lengths, end of the first part, start of the second part and
+		// key of the first part
+		int[] partCounts = new int[length + 1];
+		int[] scores = new int[length + 1];
+		int[] partEnds = new int[length + 1];
+		int[] nextStarts = new int[length + 1];
+		int[] keys = new int[length + 1];
+		for (int start = length - 1; start >= 0; start--) {
+			if (!boundaries[start]) {
+				continue;
+			}
+			int node = KeyTrie.ROOT;
+			for (int end = start + 1; end <= length && node != KeyTrie.NO_NODE; end++) {
+				node = keyTrie.child(node, foldedWord.charAt(end - 1));
+				if (node == KeyTrie.NO_NODE || end - start < MIN_PART_LENGTH || !boundaries[end]
+						|| keyTrie.key(node) == 0) {
+					continue;
+				}
+				int partScore = (end - start) * (end - start);
+				if (end == length) {
+					choose(start, end, end, keyTrie.key(node), 1, partScore, partCounts, scores, partEnds, nextStarts,
+							keys);
+					continue;
+				}
+				if (partCounts[end] > 0) {
+					choose(start, end, end, keyTrie.key(node), partCounts[end] + 1, partScore + scores[end],
+							partCounts, scores, partEnds, nextStarts, keys);
+				}
+				for (String linkingElement : LINKING_ELEMENTS) {
+					int nextStart = end + linkingElement.length();
+					if (nextStart < length && partCounts[nextStart] > 0 && boundaries[nextStart]
+							&& foldedWord.startsWith(linkingElement, end)) {
+						choose(start, end, nextStart, keyTrie.key(node), partCounts[nextStart] + 1,
+								partScore + scores[nextStart], partCounts, scores, partEnds, nextStarts, keys);
+					}
+				}
+			}
+		}
+		if (partCounts[0] < 2) {
+			return null;
+		}
+
+		List<Part> parts = new ArrayList<Part>(partCounts[0]);
+		for (int start = 0; start < length; start = nextStarts[start]) {
+			parts.add(new Part(word.substring(origins[start], origins[partEnds[start]]), keys[start]));
+		}
+		return parts;
+	}
+
+	/**
+	 * Takes the candidate split for the start position if it has fewer parts
+	 * or, with as many parts, longer ones
+	 */
+	private void choose(int start, int end, int nextStart, int key, int partCount, int score, int[] partCounts,
+			int[] scores, int[] partEnds, int[] nextStarts, int[] keys) {
+		if (partCounts[start] == 0 || partCount < partCounts[start]
+				|| (partCount == partCounts[start] && score > scores[start])) {
+			partCounts[start] = partCount;
+			scores[start] = score;
+			partEnds[start] = end;
+			nextStarts[start] = nextStart;
+			keys[start] = key;
+		}
+	}
+}
@@ -2,9 +2,9 @@ package de.vetemi.translation;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import de.danielnaber.jwordsplitter.AbstractWordSplitter;
 import de.danielnaber.jwordsplitter.GermanWordSplitter;
@@ -19,55 +19,135 @@ import de.vetemi.wordprocessing.IWordProcessor;
 public class DictTranslator extends AbstractTranslator {
 
 	/**
-	 * Splitter to decompound German word composition, e.g. "Donaudampfschiff"
-	 * -> "Donau","Dampf","Schiff"
+	 * Splitters to decompound German word composition, e.g. "Donaudampfschiff"
+	 * -> "Donau","Dampf","Schiff". A splitter must not be shared between
+	 * threads, so a thread takes one out of the pool while splitting. The pool
+	 * outlives the threads, e.g. the workers of several pipeline runs, so a
+	 * splitter is only loaded per concurrently splitting thread
 	 */
-	AbstractWordSplitter compositionSplitter;
+	private final Queue<AbstractWordSplitter> compositionSplitters = new ConcurrentLinkedQueue<AbstractWordSplitter>();
+
+	/**
+	 * True if loading a splitter has failed, so that it is not tried again for
+	 * every word
+	 */
+	private volatile boolean compositionSplitterFailed;
+
+	/**
+	 * Constant for separating the parts of a decompounded word in the split
+	 * memory
+	 */
+	private final String SPLIT_PART_SEPARATOR = " ";
+
+	/**
+	 * Constant for marking the splits of the decompounder in the split memory,
+	 * which are translated as dictionary keys, in contrast to the splits of the
+	 * word splitter
+	 */
+	private final String DECOMPOUNDER_SPLIT_MARK = "+";
+
+	/**
+	 * Splits German compositions into key tokens of the dictionary
+	 */
+	private Decompounder decompounder;
 
 	public DictTranslator(IWordProcessor wordProcessor) {
 		super(wordProcessor);
+	}
+
+	@Override
+	public void setTranslationDictionary(ITranslationDictionary translationDictionary) {
+		super.setTranslationDictionary(translationDictionary);
+		decompounder = new Decompounder(translationDictionary.getKeyTrie(), wordProcessor);
+	}
 
+	private static AbstractWordSplitter createCompositionSplitter() {
 		try {
-			compositionSplitter = new GermanWordSplitter(true);
+			return new GermanWordSplitter(true);
 		} catch (IOException e) {
 			e.printStackTrace();
-		} 
+		}
+		return null;
 	}
 
-	/** Constant for the maximum of translations to found per word */
-	private final int MAX_FIND_TRANS = 40;
 	/**
 	 * Constant for the minimum a word to translate or translation itself must
 	 * have
 	 */
-	private final int MIN_WORD_TO_TRANS_LENGTH = 3;
+	public static final int MIN_WORD_TO_TRANS_LENGTH = 3;
 	/**
 	 * Constant for the maximum of words one single translation can contain
 	 * (avoid quotes)
 	 */
-	private final int MAX_WORDS_TRANS_CONTAINS = 4;
+	public static final int MAX_WORDS_TRANS_CONTAINS = 4;
 
 	@Override
 	public String translate(String wordSource) {
+		return translatePart(wordSource).getTranslation();
+	}
+
+	@Override
+	public PartTranslation translatePart(String wordSource) {
 
 		if (!isValid(wordSource)) {
-			return null;
+			return new PartTranslation(wordSource, null, TranslationSource.NONE);
 		}
 
-		// try whole word without decomposition
-		String totalTranslation = translateWord(wordSource);
+		// try whole word without decomposition, looked up if not memorized
+		boolean[] lookedUp = new boolean[1];
+		String totalTranslation = translationMemory.computeIfAbsent(wordSource.toLowerCase(), word -> {
+			lookedUp[0] = true;
+			return lookUpWord(word);
+		});
 		if (!totalTranslation.isEmpty()) {
-			return totalTranslation;
+			statistics.addWholeWord();
+			return new PartTranslation(wordSource, totalTranslation,
+					lookedUp[0] ? TranslationSource.DICTIONARY : TranslationSource.MEMORY);
 		}
 
-		// Decompose German compounded words
-		List<String> decompoundedWords = compositionSplitter.splitWord(wordSource);
+		// Decompose German compounded words into translatable dictionary keys,
+		// otherwise with the vocabulary of the word splitter, split if not
+		// memorized
+		Decompounder.Part[][] splitParts = new Decompounder.Part[1][];
+		String split = splitMemory.computeIfAbsent(wordSource, word -> {
+			List<Decompounder.Part> parts = decompounder == null ? null : decompounder.split(word);
+			if (parts == null) {
+				return decompound(word);
+			}
+			splitParts[0] = parts.toArray(new Decompounder.Part[parts.size()]);
+			StringBuilder partWords = new StringBuilder(DECOMPOUNDER_SPLIT_MARK);
+			for (Decompounder.Part part : parts) {
+				if (partWords.length() > DECOMPOUNDER_SPLIT_MARK.length()) {
+					partWords.append(SPLIT_PART_SEPARATOR);
+				}
+				partWords.append(part.getWord());
+			}
+			return partWords.toString();
+		});
+		if (split.startsWith(DECOMPOUNDER_SPLIT_MARK)) {
+			statistics.addDecompoundedWord();
+			if (splitParts[0] != null) {
+				for (Decompounder.Part part : splitParts[0]) {
+					totalTranslation += translateKey(part);
+				}
+			} else {
+				// memorized split, the parts are mostly memorized as well
+				for (String word : split.substring(DECOMPOUNDER_SPLIT_MARK.length()).split(SPLIT_PART_SEPARATOR)) {
+					totalTranslation += translateWord(word);
+				}
+			}
+			return new PartTranslation(wordSource, totalTranslation, TranslationSource.DECOMPOUNDED);
+		}
+
+		List<String> decompoundedWords = Arrays.asList(split.split(SPLIT_PART_SEPARATOR));
 		boolean hasTranslation = false;
+		int missingParts = 0;
 
 		for (String word : decompoundedWords) {
 			String translatedWord = translateWord(word);
 			if (translatedWord.isEmpty()) {
 				totalTranslation += "N/A";
+				missingParts++;
 			} else {
 				totalTranslation += translatedWord;
 				hasTranslation = true;
@@ -75,87 +155,94 @@ public class DictTranslator extends AbstractTranslator {
 		}
 		// Save translation
 		if (hasTranslation) {
-			return totalTranslation;
+			statistics.addSplitterFallback();
+			statistics.addMissingParts(missingParts);
+			return new PartTranslation(wordSource, totalTranslation, TranslationSource.WORD_SPLITTER);
+		}
+		statistics.addUntranslatedWord();
+		return new PartTranslation(wordSource, null, TranslationSource.NONE);
+	}
+
+	/**
+	 * Does the actual decompounding with a splitter of the pool
+	 *
+	 * @return the parts separated by the split part separator
+	 */
+	private String decompound(String word) {
+		if (compositionSplitterFailed) {
+			return word;
+		}
+		AbstractWordSplitter splitter = compositionSplitters.poll();
+		if (splitter == null) {
+			splitter = createCompositionSplitter();
+			if (splitter == null) {
+				compositionSplitterFailed = true;
+				return word;
+			}
+		}
+		try {
+			return String.join(SPLIT_PART_SEPARATOR, splitter.splitWord(word));
+		} finally {
+			compositionSplitters.offer(splitter);
 		}
-		return null;
 	}
 
 	/**
-	 * Does the actual translation. Uses lemmatization to find the translation
-	 * for the base word. Collects the count for every found translation and
-	 * returns the value with the highest count. Assumption is that highest
-	 * count is best translation
+	 * Returns the translation of the word from the memory. If the word has not
+	 * been translated yet, it is looked up exactly once, even if several
+	 * threads ask for it at the same time
 	 * 
 	 * @param word
 	 *            the word to translate
-	 * @return the translation with highest frequency in the translation map
+	 * @return the translation or an empty String if nothing found
 	 */
 	private String translateWord(String word) {
 
 		// absolute word as lower case
 		String absoluteWord = word.toLowerCase();
 
-		// check if this word has been already translated
-		String translatedString = memoryMap.get(absoluteWord);
-		if (translatedString != null) {
-			return translatedString;
-		}
+		// check if this word has been already translated, otherwise look it up
+		return translationMemory.computeIfAbsent(absoluteWord, this::lookUpWord);
+	}
 
-		HashMap<String, Integer> foundTranslations = new HashMap<String, Integer>();
-
-		// iterate through whole translation map until enough translations are found
-		for (Map.Entry<String, String> translation : translationMap.entrySet()) {
-			if (foundTranslations.size() <= MAX_FIND_TRANS) {
-
-				// Clean and split key to different word parts in order to
-				// have a better check
-				String cleanedKey = wordProcessor.cleanTranslation(translation.getKey());
-				List<String> keyWords = Arrays.asList(cleanedKey.split("[-\\s]"));
-
-				// translation found
-				if (keyWords.contains(absoluteWord)) {
-
-					// clean translation
-					String cleanedValue = wordProcessor.cleanTranslation(translation.getValue());
-
-					// collect all words in a translation and count
-					// frequency
-					String[] split = cleanedValue.split("[-\\s]");
-					if (split.length <= MAX_WORDS_TRANS_CONTAINS) {
-						for (String splitWord : split) {
-							if (!splitWord.isEmpty() && (splitWord.toCharArray().length >= MIN_WORD_TO_TRANS_LENGTH)) {
-								Integer counter = foundTranslations.get(splitWord);
-								if (counter == null) {
-									counter = 1;
-								} else {
-									counter++;
-								}
-								foundTranslations.put(splitWord, counter);
-							}
-						}
-					}
-				}
-			} else {
-				break;
-			}
-		}
+	/**
+	 * Returns the translation of a part of a composition from the memory. If
+	 * the part has not been translated yet, its entries are read with the key
+	 * found by the decompounder, no further lookup is needed
+	 *
+	 * @param part
+	 *            the part to translate
+	 * @return the translation or an empty String if nothing found
+	 */
+	private String translateKey(Decompounder.Part part) {
+		String absoluteWord = part.getWord().toLowerCase();
+		return translationMemory.computeIfAbsent(absoluteWord,
+				word -> bestTranslation(translationDictionary.getTranslations(part.getKey(), word)));
+	}
 
-		// Check if translation has been found
-		if (!foundTranslations.isEmpty()) {
-			Map.Entry<String, Integer> bestTranslation = foundTranslations.entrySet().iterator().next();
-			// Iterate through found translations and return the best value
-			for (Map.Entry<String, Integer> currentTranslation : foundTranslations.entrySet()) {
-				if (bestTranslation.getValue() < currentTranslation.getValue()) {
-					bestTranslation = currentTranslation;
-				}
-			}
-			memoryMap.put(absoluteWord, bestTranslation.getKey());
-			return bestTranslation.getKey();
-		} else {
-			memoryMap.put(absoluteWord, "");
-			return "";
+	/**
+	 * Does the actual translation. The translations of every dictionary token
+	 * are ranked by frequency in advance, see {@link TranslationRanking}, so
+	 * this is a single lookup
+	 * 
+	 * @param absoluteWord
+	 *            the lower case word to translate
+	 * @return the translation with highest frequency in the translation file
+	 *         or an empty String
+	 */
+	private String lookUpWord(String absoluteWord) {
+		// one lookup finds the word and its umlaut variants
+		String foldedWord = wordProcessor.foldWord(absoluteWord);
+		String translation = bestTranslation(translationDictionary.getTranslations(foldedWord, absoluteWord));
+		// found by another spelling only, e.g. "größe" for "groesse"
+		if (!translation.isEmpty() && !translationDictionary.containsSpelling(foldedWord, absoluteWord)) {
+			statistics.addUmlautSpellingLookup();
 		}
+		return translation;
+	}
 
+	private String bestTranslation(String[] translations) {
+		return translations.length == 0 ? "" : translations[0];
 	}
 
 	/**
@@ -0,0 +1,164 @@
+package de.vetemi.translation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import de.vetemi.wordprocessing.IWordProcessor;
+
+/**
+ * One line of the translation file. Holds the raw German key and English value
+ * as well as their cleaned and tokenized form, so that the cleaning is done
+ * once while importing and not for every word to translate.
+ *
+ * @author Valmir Etemi
+ */
+public class DictionaryEntry {
+
+	/**
+	 * Delimiter between the words of a cleaned key or value
+	 */
+	private static final Pattern TOKEN_DELIMITER = Pattern.compile("[-\\s]");
+
+	/**
+	 * Raw German key as lower case
+	 */
+	private final String germanKey;
+
+	/**
+	 * Raw English value as lower case
+	 */
+	private final String englishValue;
+
+	/**
+	 * The words of the cleaned key
+	 */
+	private final String[] keyTokens;
+
+	/**
+	 * The words of the cleaned key folded for umlaut insensitive lookups, in
+	 * the same order as the key tokens
+	 */
+	private final String[] foldedKeyTokens;
+
+	/**
+	 * The words of the cleaned value which are long enough to be a translation
+	 */
+	private final String[] valueTokens;
+
+	public DictionaryEntry(String germanKey, String englishValue, String[] keyTokens, String[] foldedKeyTokens,
+			String[] valueTokens) {
+		this.germanKey = germanKey;
+		this.englishValue = englishValue;
+		this.keyTokens = keyTokens;
+		this.foldedKeyTokens = foldedKeyTokens;
+		this.valueTokens = valueTokens;
+	}
+
+	/**
+	 * Cleans and tokenizes a line of the translation file. Returns null if the
+	 * entry can never provide a translation, i.e. the value contains too many
+	 * words or none of its words is long enough.
+	 *
+	 * @param germanKey
+	 *            raw German key as lower case
+	 * @param englishValue
+	 *            raw English value as lower case
+	 * @param wordProcessor
+	 *            word processor used to clean key and value
+	 * @return the normalized entry or null if not usable
+	 */
+	public static DictionaryEntry normalize(String germanKey, String englishValue, IWordProcessor wordProcessor) {
+		String[] valueWords = TOKEN_DELIMITER.split(wordProcessor.cleanTranslation(englishValue));
+		if (valueWords.length > DictTranslator.MAX_WORDS_TRANS_CONTAINS) {
+			return null;
+		}
+		String[] valueTokens = filterTokens(valueWords, DictTranslator.MIN_WORD_TO_TRANS_LENGTH, false);
+		if (valueTokens.length == 0) {
+			return null;
+		}
+		String[] keyTokens = filterTokens(TOKEN_DELIMITER.split(wordProcessor.cleanTranslation(germanKey)), 1, true);
+		if (keyTokens.length == 0) {
+			return null;
+		}
+		String[] foldedKeyTokens = new String[keyTokens.length];
+		for (int i = 0; i < keyTokens.length; i++) {
+			foldedKeyTokens[i] = wordProcessor.foldWord(keyTokens[i]);
+		}
+		return new DictionaryEntry(germanKey, englishValue, keyTokens, foldedKeyTokens, valueTokens);
+	}
+
+	/**
+	 * Returns the tokens which have at least the given length
+	 *
+	 * @param tokens
+	 *            tokens to filter
+	 * @param minLength
+	 *            minimum length of a token
+	 * @param distinct
+	 *            true if every token should be contained only once
+	 * @return the filtered tokens
+	 */
+	private static String[] filterTokens(String[] tokens, int minLength, boolean distinct) {
+		List<String> filtered = new ArrayList<String>(tokens.length);
+		for (String token : tokens) {
+			if (token.length() >= minLength && !(distinct && filtered.contains(token))) {
+				filtered.add(token);
+			}
+		}
+		return filtered.toArray(new String[filtered.size()]);
+	}
+
+	public String getGermanKey() {
+		return germanKey;
+	}
+
+	public String getEnglishValue() {
+		return englishValue;
+	}
+
+	public String[] getKeyTokens() {
+		return keyTokens;
+	}
+
+	public String[] getFoldedKeyTokens() {
+		return foldedKeyTokens;
+	}
+
+	/**
+	 * Returns the key token which is folded to the given word
+	 *
+	 * @param foldedWord
+	 *            a folded key token of this entry
+	 * @return the key token or null if no key token is folded to the word
+	 */
+	public String getKeyVariant(String foldedWord) {
+		for (int i = 0; i < foldedKeyTokens.length; i++) {
+			if (foldedKeyTokens[i].equals(foldedWord)) {
+				return keyTokens[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the cleaned key contains exactly the given word
+	 *
+	 * @param word
+	 *            lower case word
+	 * @return true if contained, otherwise false
+	 */
+	public boolean containsKeyToken(String word) {
+		for (String keyToken : keyTokens) {
+			if (keyToken.equals(word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public String[] getValueTokens() {
+		return valueTokens;
+	}
+
+}
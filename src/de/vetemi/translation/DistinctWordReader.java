@@ -0,0 +1,308 @@
+package de.vetemi.translation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the words of a word source one by one and skips duplicates with
+ * bounded memory. A Bloom filter decides if a word is definitely new, such
+ * words are returned immediately. Words which may have been read before are
+ * spilled to disk, partitioned by hash, together with the returned words.
+ * After the source is read completely, every partition is checked exactly and
+ * the words which turned out to be new are returned as well. Only the filter,
+ * a small cache of recent words and one partition are held in memory.
+ *
+ * @author Valmir Etemi
+ */
+public class DistinctWordReader implements IWordSource {
+
+	/**
+	 * Accepted probability that a new word is spilled instead of returned
+	 * immediately
+	 */
+	private final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	/**
+	 * Number of recently read words which are checked exactly without the
+	 * filter
+	 */
+	private final int RECENT_WORDS_CAPACITY = 10000;
+
+	/**
+	 * Number of returned words which are kept in memory before the spill files
+	 * are created. Small sources without possible duplicates are never
+	 * spilled
+	 */
+	private final int UNSPILLED_WORDS_CAPACITY = 100000;
+
+	/**
+	 * Number of spill partitions. One partition is loaded at a time
+	 */
+	private final int PARTITION_COUNT = 64;
+
+	/**
+	 * The source with one word per line
+	 */
+	private BufferedReader source;
+
+	/**
+	 * Contains all returned words
+	 */
+	private BloomFilter readWords;
+
+	/**
+	 * Recently read words, which are very likely duplicated again
+	 */
+	private Map<String, Boolean> recentWords;
+
+	/**
+	 * Returned words which have not been spilled yet
+	 */
+	private List<String> unspilledWords;
+
+	/**
+	 * Directory of the spill files, created on the first possible duplicate or
+	 * if too many words are unspilled
+	 */
+	private File spillDirectory;
+
+	/**
+	 * Parent of the spill directory
+	 */
+	private File temporaryDirectory;
+
+	/**
+	 * Per partition the returned words
+	 */
+	private BufferedWriter[] returnedSpills;
+
+	/**
+	 * Per partition the words which may be duplicates
+	 */
+	private BufferedWriter[] candidateSpills;
+
+	/**
+	 * Next partition to resolve after the source has been read
+	 */
+	private int nextPartition = -1;
+
+	/**
+	 * New words of the current partition
+	 */
+	private Iterator<String> resolvedWords;
+
+	private long lineCount;
+	private long distinctCount;
+	private long spilledCount;
+
+	/**
+	 * @param source
+	 *            the source with one word per line
+	 * @param expectedWords
+	 *            estimated number of distinct words, used to size the filter
+	 * @param temporaryDirectory
+	 *            directory for the spill files
+	 */
+	public DistinctWordReader(BufferedReader source, long expectedWords, File temporaryDirectory) {
+		this.source = source;
+		this.temporaryDirectory = temporaryDirectory;
+		readWords = new BloomFilter(expectedWords, FALSE_POSITIVE_PROBABILITY);
+		unspilledWords = new ArrayList<String>();
+		recentWords = new LinkedHashMap<String, Boolean>(RECENT_WORDS_CAPACITY, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > RECENT_WORDS_CAPACITY;
+			}
+		};
+	}
+
+	/**
+	 * Returns the next word which has not been returned before
+	 *
+	 * @return the next distinct word or null if all words have been read
+	 * @throws IOException
+	 *             if reading the source or the spill files fails
+	 */
+	@Override
+	public String nextWord() throws IOException {
+		if (nextPartition < 0) {
+			String line;
+			while ((line = source.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				lineCount++;
+				if (recentWords.put(line, Boolean.TRUE) != null) {
+					// duplicate of a recent word
+					continue;
+				}
+				if (readWords.put(line)) {
+					// definitely not returned before
+					if (spillDirectory != null) {
+						spill(returnedSpills, line);
+					} else if (unspilledWords.add(line) && unspilledWords.size() > UNSPILLED_WORDS_CAPACITY) {
+						openSpills();
+					}
+					distinctCount++;
+					return line;
+				}
+				if (spillDirectory == null) {
+					openSpills();
+				}
+				spill(candidateSpills, line);
+				spilledCount++;
+			}
+			closeSpills();
+			nextPartition = 0;
+		}
+
+		while (resolvedWords == null || !resolvedWords.hasNext()) {
+			if (spillDirectory == null || nextPartition >= PARTITION_COUNT) {
+				return null;
+			}
+			resolvedWords = resolvePartition(nextPartition++);
+		}
+		distinctCount++;
+		return resolvedWords.next();
+	}
+
+	/**
+	 * Checks the possible duplicates of a partition exactly against the
+	 * returned words of this partition
+	 *
+	 * @return the new words of the partition
+	 */
+	private Iterator<String> resolvePartition(int partition) throws IOException {
+		File candidateFile = new File(spillDirectory, "candidates-" + partition);
+		if (!candidateFile.exists()) {
+			return null;
+		}
+		HashSet<String> partitionWords = new HashSet<String>();
+		readSpill(new File(spillDirectory, "returned-" + partition), partitionWords, null);
+		List<String> newWords = new ArrayList<String>();
+		readSpill(candidateFile, partitionWords, newWords);
+		return newWords.iterator();
+	}
+
+	/**
+	 * Reads a spill file into the set. Words which were not contained are
+	 * added to the list of new words, if given
+	 */
+	private void readSpill(File spillFile, HashSet<String> words, List<String> newWords) throws IOException {
+		if (!spillFile.exists()) {
+			return;
+		}
+		BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(spillFile), "UTF-8"));
+		try {
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				if (words.add(line) && newWords != null) {
+					newWords.add(line);
+				}
+			}
+		} finally {
+			bReader.close();
+		}
+	}
+
+	/**
+	 * Creates the spill directory and spills the words returned so far
+	 */
+	private void openSpills() throws IOException {
+		spillDirectory = Files.createTempDirectory(temporaryDirectory.toPath(), "wordsource").toFile();
+		returnedSpills = new BufferedWriter[PARTITION_COUNT];
+		candidateSpills = new BufferedWriter[PARTITION_COUNT];
+		for (String word : unspilledWords) {
+			spill(returnedSpills, word);
+		}
+		unspilledWords = null;
+	}
+
+	private void spill(BufferedWriter[] spills, String word) throws IOException {
+		int partition = partition(word);
+		if (spills[partition] == null) {
+			String prefix = spills == returnedSpills ? "returned-" : "candidates-";
+			spills[partition] = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(new File(spillDirectory, prefix + partition)), "UTF-8"));
+		}
+		spills[partition].write(word);
+		spills[partition].newLine();
+	}
+
+	private int partition(String word) {
+		int hash = word.hashCode();
+		return ((hash ^ (hash >>> 16)) & 0x7FFFFFFF) % PARTITION_COUNT;
+	}
+
+	private void closeSpills() throws IOException {
+		if (spillDirectory == null) {
+			return;
+		}
+		for (int i = 0; i < PARTITION_COUNT; i++) {
+			if (returnedSpills[i] != null) {
+				returnedSpills[i].close();
+			}
+			if (candidateSpills[i] != null) {
+				candidateSpills[i].close();
+			}
+		}
+	}
+
+	/**
+	 * Closes the source and deletes the spill files
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			source.close();
+			closeSpills();
+		} finally {
+			if (spillDirectory != null) {
+				File[] spillFiles = spillDirectory.listFiles();
+				if (spillFiles != null) {
+					for (File spillFile : spillFiles) {
+						spillFile.delete();
+					}
+				}
+				spillDirectory.delete();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of non empty lines read
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return the number of distinct words returned
+	 */
+	public long getDistinctCount() {
+		return distinctCount;
+	}
+
+	/**
+	 * @return the number of possible duplicates which were spilled to disk
+	 */
+	public long getSpilledCount() {
+		return spilledCount;
+	}
+}
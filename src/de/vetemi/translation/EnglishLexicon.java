@@ -0,0 +1,172 @@
+package de.vetemi.translation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact set of the English values of the translation file, used to find
+ * source words which are English already. The words are sorted and stored
+ * back to back in one char arena with an offset per word, so the set costs
+ * about two bytes per character instead of a String and a hash entry per
+ * word. Infinitives are folded in: for "to translate" the lexicon contains
+ * "translate" as well, so a single lookup answers both questions.
+ * <p>
+ * The arena is either held in the heap or read directly from the compiled
+ * dictionary.
+ *
+ * @author Valmir Etemi
+ */
+public class EnglishLexicon {
+
+	/**
+	 * Prefix of English infinitives in the translation file
+	 */
+	private static final String INFINITIVE_PREFIX = "to ";
+
+	/**
+	 * The sorted words back to back
+	 */
+	private final CharBuffer chars;
+
+	/**
+	 * Start offsets of the words in the arena plus the end of the last word
+	 */
+	private final IntBuffer offsets;
+
+	/**
+	 * Number of words
+	 */
+	private final int wordCount;
+
+	/**
+	 * @param chars
+	 *            the sorted words back to back
+	 * @param offsets
+	 *            start offsets of the words plus the end of the last word
+	 */
+	public EnglishLexicon(CharBuffer chars, IntBuffer offsets) {
+		this.chars = chars;
+		this.offsets = offsets;
+		wordCount = Math.max(offsets.limit() - 1, 0);
+	}
+
+	/**
+	 * Builds the lexicon of the given lower case English values
+	 *
+	 * @param englishWords
+	 *            the English values, may contain duplicates
+	 * @return the lexicon
+	 */
+	public static EnglishLexicon build(Collection<String> englishWords) {
+		List<String> words = new ArrayList<String>(englishWords.size() + englishWords.size() / 4);
+		for (String englishWord : englishWords) {
+			words.add(englishWord);
+			if (englishWord.startsWith(INFINITIVE_PREFIX)) {
+				words.add(englishWord.substring(INFINITIVE_PREFIX.length()));
+			}
+		}
+		Collections.sort(words);
+
+		int length = 0;
+		int distinctCount = 0;
+		for (int i = 0; i < words.size(); i++) {
+			if (i == 0 || !words.get(i).equals(words.get(i - 1))) {
+				length += words.get(i).length();
+				distinctCount++;
+			}
+		}
+		char[] arena = new char[length];
+		int[] wordOffsets = new int[distinctCount + 1];
+		int position = 0;
+		int word = 0;
+		for (int i = 0; i < words.size(); i++) {
+			if (i == 0 || !words.get(i).equals(words.get(i - 1))) {
+				wordOffsets[word++] = position;
+				words.get(i).getChars(0, words.get(i).length(), arena, position);
+				position += words.get(i).length();
+			}
+		}
+		wordOffsets[word] = position;
+		return new EnglishLexicon(CharBuffer.wrap(arena), IntBuffer.wrap(wordOffsets));
+	}
+
+	/**
+	 * Checks if the word or its infinitive ("to " + word) is an English value.
+	 * Upper case letters of the word are compared as lower case ones
+	 *
+	 * @param word
+	 *            the word to check
+	 * @return true if English word, otherwise false
+	 */
+	public boolean contains(CharSequence word) {
+		int low = 0;
+		int high = wordCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(middle, word);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares the word at the index of the arena with the lower cased word
+	 */
+	private int compare(int index, CharSequence word) {
+		int start = offsets.get(index);
+		int length = offsets.get(index + 1) - start;
+		int commonLength = Math.min(length, word.length());
+		for (int i = 0; i < commonLength; i++) {
+			char stored = chars.get(start + i);
+			char searched = Character.toLowerCase(word.charAt(i));
+			if (stored != searched) {
+				return stored - searched;
+			}
+		}
+		return length - word.length();
+	}
+
+	/**
+	 * Writes the offsets and then the arena
+	 *
+	 * @param output
+	 *            the output
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		for (int i = 0; i <= wordCount; i++) {
+			output.writeInt(offsets.get(i));
+		}
+		int length = wordCount == 0 ? 0 : offsets.get(wordCount);
+		for (int i = 0; i < length; i++) {
+			output.writeChar(chars.get(i));
+		}
+	}
+
+	/**
+	 * @return the number of words, infinitives counted twice
+	 */
+	public int size() {
+		return wordCount;
+	}
+
+	/**
+	 * @return the number of characters of all words
+	 */
+	public int getCharCount() {
+		return wordCount == 0 ? 0 : offsets.get(wordCount);
+	}
+}
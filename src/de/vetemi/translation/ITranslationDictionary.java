@@ -0,0 +1,109 @@
+package de.vetemi.translation;
+
+import java.util.List;
+
+/**
+ * Interface for the imported translation data, independent of whether it was
+ * parsed from the translation file or loaded from a compiled snapshot
+ *
+ * @author Valmir Etemi
+ */
+public interface ITranslationDictionary {
+
+	/**
+	 * Returns the cleaned value tokens of every entry whose cleaned German key
+	 * contains the given word. If no key contains exactly the word, the entries
+	 * of all umlaut variants of the word are returned, e.g. "größe" for
+	 * "groesse". The entries keep the order of the translation file
+	 *
+	 * @param foldedWord
+	 *            the word folded by the word processor
+	 * @param word
+	 *            lower case word to look up
+	 * @return list of value tokens per matching entry, empty if nothing found
+	 */
+	public List<String[]> getValueTokens(String foldedWord, String word);
+
+	/**
+	 * Returns the cleaned value tokens of every entry whose cleaned German key
+	 * contains the key token with the given key of the key trie, preferring
+	 * the entries with exactly the given spelling like
+	 * {@link #getValueTokens(String, String)}
+	 *
+	 * @param key
+	 *            key of a key token in the key trie
+	 * @param word
+	 *            lower case spelling of the key token
+	 * @return list of value tokens per matching entry
+	 */
+	public List<String[]> getValueTokens(int key, String word);
+
+	/**
+	 * Returns the ranked translations of the given word, see
+	 * {@link TranslationRanking}. Entries are matched like in
+	 * {@link #getValueTokens(String, String)}
+	 *
+	 * @param foldedWord
+	 *            the word folded by the word processor
+	 * @param word
+	 *            lower case word to look up
+	 * @return the best translations, best first, empty if nothing found
+	 */
+	public String[] getTranslations(String foldedWord, String word);
+
+	/**
+	 * Returns the ranked translations of the key token with the given key of
+	 * the key trie, see {@link #getTranslations(String, String)}
+	 *
+	 * @param key
+	 *            key of a key token in the key trie
+	 * @param word
+	 *            lower case spelling of the key token
+	 * @return the best translations, best first
+	 */
+	public String[] getTranslations(int key, String word);
+
+	/**
+	 * Checks if a German key contains exactly the given spelling of the folded
+	 * word, i.e. if {@link #getValueTokens(String, String)} finds the word
+	 * without falling back to its umlaut variants
+	 *
+	 * @param foldedWord
+	 *            the word folded by the word processor
+	 * @param word
+	 *            lower case word to look up
+	 * @return true if a key contains the spelling, otherwise false
+	 */
+	public boolean containsSpelling(String foldedWord, String word);
+
+	/**
+	 * @return the trie over the folded German key tokens
+	 */
+	public KeyTrie getKeyTrie();
+
+	/**
+	 * Checks if the given word or its infinitive ("to " + word) is an English
+	 * value of the translation file. The word is compared in lower case
+	 *
+	 * @param word
+	 *            word to check
+	 * @return true if English word, otherwise false
+	 */
+	public boolean containsEnglishWord(CharSequence word);
+
+	/**
+	 * @return the number of indexed entries
+	 */
+	public int getEntryCount();
+
+	/**
+	 * @return the number of distinct German key tokens
+	 */
+	public int size();
+
+	/**
+	 * @return true if no entry has been imported
+	 */
+	public boolean isEmpty();
+
+}
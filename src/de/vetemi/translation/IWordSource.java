@@ -0,0 +1,23 @@
+package de.vetemi.translation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of distinct words to translate, e.g. the word source file or the
+ * identifiers of a source tree
+ *
+ * @author Valmir Etemi
+ */
+public interface IWordSource extends Closeable {
+
+	/**
+	 * Returns the next word which has not been returned before
+	 *
+	 * @return the next word or null if the source is exhausted
+	 * @throws IOException
+	 *             if reading the source fails
+	 */
+	public String nextWord() throws IOException;
+
+}
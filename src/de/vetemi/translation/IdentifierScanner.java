@@ -0,0 +1,591 @@
+package de.vetemi.translation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Scans the Java files of a source tree for the names declared in them:
+ * classes, interfaces, enums, methods, fields, parameters and local variables.
+ * There is no parser, a lexer skips comments and literals and takes an
+ * identifier as declared name if
+ * <ul>
+ * <li>it follows "class", "interface" or "enum", or</li>
+ * <li>it follows a type, i.e. an identifier, a primitive type, "&gt;" or "]",
+ * and is followed by "(", "=", ";", ",", ")" or ":", e.g.
+ * "List&lt;String&gt; names;" or "void translate(String word)"</li>
+ * </ul>
+ * The files are scanned by several threads while the tree is walked. Small
+ * files are read into a buffer per thread, large files are memory mapped, and
+ * the bytes are scanned without decoding. Every name is returned once, the
+ * duplicates are dropped while scanning, so the first names are translated
+ * while the tree is still being scanned. With the manifest of a previous run,
+ * the names of unchanged files are taken from it instead.
+ *
+ * @author Valmir Etemi
+ */
+public class IdentifierScanner implements IWordSource {
+
+	/**
+	 * Capacity of the queue between the scanning threads and the reader of
+	 * the names
+	 */
+	private final int QUEUE_CAPACITY = 16384;
+
+	/**
+	 * Files of this size or larger are memory mapped instead of read
+	 */
+	private final int MAP_THRESHOLD = 1 << 20;
+
+	/**
+	 * Marks the end of the names in the queue
+	 */
+	private static final String END = new String("end of identifiers");
+
+	/**
+	 * Kinds of the previous token
+	 */
+	private static final int OTHER = 0;
+	private static final int TYPE = 1;
+	private static final int DOT = 2;
+	private static final int DECLARING = 3;
+
+	/**
+	 * Keywords which are types
+	 */
+	private static final String[] PRIMITIVE_TYPES = { "boolean", "byte", "char", "short", "int", "long", "float",
+			"double", "void" };
+
+	/**
+	 * Keywords which are followed by the declared name
+	 */
+	private static final String[] DECLARING_KEYWORDS = { "class", "interface", "enum" };
+
+	/**
+	 * Keywords and literals which are neither types nor declared names. Also
+	 * the restricted identifiers which would be taken as types otherwise
+	 */
+	private static final String[] OTHER_KEYWORDS = { "abstract", "assert", "break", "case", "catch", "const",
+			"continue", "default", "do", "else", "extends", "final", "finally", "for", "goto", "if", "implements",
+			"import", "instanceof", "native", "new", "package", "private", "protected", "public", "return", "static",
+			"strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "volatile",
+			"while", "true", "false", "null", "yield", "sealed", "permits" };
+
+	/**
+	 * Keywords by their first letter, as bytes, and their kind
+	 */
+	private static final byte[][][] KEYWORDS = new byte[26][][];
+	private static final int[][] KEYWORD_KINDS = new int[26][];
+
+	/**
+	 * Bytes which may be part of an identifier. Bytes of multi byte UTF-8
+	 * characters are, so that e.g. umlauts are part of a name
+	 */
+	private static final boolean[] IDENTIFIER_PARTS = new boolean[256];
+
+	static {
+		addKeywords(PRIMITIVE_TYPES, TYPE);
+		addKeywords(DECLARING_KEYWORDS, DECLARING);
+		addKeywords(OTHER_KEYWORDS, OTHER);
+		for (int b = 0; b < 256; b++) {
+			IDENTIFIER_PARTS[b] = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+					|| b == '_' || b == '$' || b >= 0x80;
+		}
+	}
+
+	private static void addKeywords(String[] keywords, int kind) {
+		for (String keyword : keywords) {
+			int letter = keyword.charAt(0) - 'a';
+			int count = KEYWORDS[letter] == null ? 0 : KEYWORDS[letter].length;
+			byte[][] letterKeywords = new byte[count + 1][];
+			int[] letterKinds = new int[count + 1];
+			if (count > 0) {
+				System.arraycopy(KEYWORDS[letter], 0, letterKeywords, 0, count);
+				System.arraycopy(KEYWORD_KINDS[letter], 0, letterKinds, 0, count);
+			}
+			letterKeywords[count] = keyword.getBytes(StandardCharsets.US_ASCII);
+			letterKinds[count] = kind;
+			KEYWORDS[letter] = letterKeywords;
+			KEYWORD_KINDS[letter] = letterKinds;
+		}
+	}
+
+	private final File sourceDirectory;
+
+	/**
+	 * New names from the scanning threads to the reader
+	 */
+	private final BlockingQueue<String> identifiers = new ArrayBlockingQueue<String>(QUEUE_CAPACITY);
+
+	/**
+	 * All names found so far
+	 */
+	private final Set<String> foundIdentifiers = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Read buffer per scanning thread, grows with the largest read file
+	 */
+	private final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1 << 16));
+
+	private final ExecutorService scanners;
+
+	private final Thread walker;
+
+	/**
+	 * Failure of walking the tree, thrown when all names have been read
+	 */
+	private final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+
+	/**
+	 * Manifest of the previous run with the names of the files, null if every
+	 * file is scanned
+	 */
+	private final SourceManifest previousManifest;
+
+	/**
+	 * Receives the fingerprint and the names of every file, null if not
+	 * recorded
+	 */
+	private final SourceManifest manifest;
+
+	private final LongAdder fileCount = new LongAdder();
+	private final LongAdder reusedFileCount = new LongAdder();
+	private final LongAdder byteCount = new LongAdder();
+	private final LongAdder declarationCount = new LongAdder();
+
+	/**
+	 * Set when the end has been read
+	 */
+	private boolean exhausted;
+
+	/**
+	 * Starts scanning the source tree
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 * @param threadCount
+	 *            number of scanning threads
+	 */
+	public IdentifierScanner(File sourceDirectory, int threadCount) {
+		this(sourceDirectory, threadCount, null, null);
+	}
+
+	/**
+	 * Starts scanning the source tree. The names of the files which are
+	 * unchanged since the previous run are taken from its manifest instead of
+	 * scanning the files again. A file counts as unchanged if its size and
+	 * modification time or the hash of its content are the same
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 * @param threadCount
+	 *            number of scanning threads
+	 * @param previousManifest
+	 *            manifest of the previous run, null to scan every file
+	 * @param manifest
+	 *            receives the fingerprint and the names of every file, null
+	 *            if not recorded
+	 */
+	public IdentifierScanner(File sourceDirectory, int threadCount, SourceManifest previousManifest,
+			SourceManifest manifest) {
+		this.sourceDirectory = sourceDirectory;
+		this.previousManifest = previousManifest;
+		this.manifest = manifest;
+		AtomicInteger threadNumber = new AtomicInteger();
+		scanners = Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+			Thread thread = new Thread(runnable, "identifier-scanner-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		walker = new Thread(this::walk, "identifier-walker");
+		walker.setDaemon(true);
+		walker.start();
+	}
+
+	/**
+	 * Walks the tree and hands every Java file to the scanning threads. Puts
+	 * the end after all files have been scanned
+	 */
+	private void walk() {
+		try (Stream<Path> files = Files.find(sourceDirectory.toPath(), Integer.MAX_VALUE,
+				(path, attributes) -> attributes.isRegularFile() && isJavaFile(path))) {
+			files.forEach(path -> scanners.execute(() -> scanFile(path)));
+		} catch (IOException e) {
+			failure.compareAndSet(null, e);
+		} catch (UncheckedIOException e) {
+			failure.compareAndSet(null, e.getCause());
+		} catch (RejectedExecutionException e) {
+			// closed while walking
+			return;
+		}
+		scanners.shutdown();
+		try {
+			scanners.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			identifiers.put(END);
+		} catch (InterruptedException e) {
+			// closed while scanning
+		}
+	}
+
+	/**
+	 * Module descriptors declare no names, their directives would be taken as
+	 * types
+	 */
+	private static boolean isJavaFile(Path path) {
+		String name = path.getFileName().toString();
+		return name.endsWith(".java") && !name.equals("module-info.java");
+	}
+
+	/**
+	 * Reads or maps the file and scans it, unless its names are known from the
+	 * previous run. A file which cannot be read is skipped
+	 */
+	private void scanFile(Path path) {
+		String relativePath = sourceDirectory.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+		SourceManifest.FileEntry known = previousManifest == null ? null : previousManifest.getFile(relativePath);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long lastModified = Files.getLastModifiedTime(path).toMillis();
+			if (known != null && known.isUnchanged(size, lastModified)) {
+				reuse(relativePath, known);
+				return;
+			}
+			ByteBuffer content;
+			if (size >= MAP_THRESHOLD) {
+				content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			} else {
+				content = readBuffer((int) size);
+				while (content.hasRemaining() && channel.read(content) >= 0) {
+					// read until full or end of file
+				}
+				content.flip();
+			}
+			if (manifest == null) {
+				fileCount.increment();
+				byteCount.add(size);
+				scan(content, null);
+				return;
+			}
+			String hash = SourceManifest.hash(content);
+			if (known != null && known.getHash().equals(hash)) {
+				// only touched
+				reuse(relativePath, new SourceManifest.FileEntry(size, lastModified, hash, known.getIdentifiers()));
+				return;
+			}
+			fileCount.increment();
+			byteCount.add(size);
+			Set<String> fileIdentifiers = new LinkedHashSet<String>();
+			scan(content, fileIdentifiers);
+			manifest.putFile(relativePath, new SourceManifest.FileEntry(size, lastModified, hash,
+					fileIdentifiers.toArray(new String[fileIdentifiers.size()])));
+		} catch (IOException e) {
+			System.out.println("Skipped file: " + path + " " + e);
+		} catch (InterruptedException e) {
+			// closed while scanning
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Passes the known names of an unchanged file to the reader
+	 */
+	private void reuse(String relativePath, SourceManifest.FileEntry entry) throws InterruptedException {
+		reusedFileCount.increment();
+		if (manifest != null) {
+			manifest.putFile(relativePath, entry);
+		}
+		for (String identifier : entry.getIdentifiers()) {
+			declarationCount.increment();
+			if (foundIdentifiers.add(identifier)) {
+				identifiers.put(identifier);
+			}
+		}
+	}
+
+	private ByteBuffer readBuffer(int size) {
+		ByteBuffer buffer = readBuffers.get();
+		if (buffer.capacity() < size) {
+			buffer = ByteBuffer.allocate(Integer.highestOneBit(size) << 1);
+			readBuffers.set(buffer);
+		}
+		buffer.clear();
+		buffer.limit(size);
+		return buffer;
+	}
+
+	/**
+	 * Scans the content of a Java file for declared names
+	 */
+	private void scan(ByteBuffer content, Set<String> fileIdentifiers) throws InterruptedException {
+		int length = content.limit();
+		int previous = OTHER;
+		// identifier which follows a type, declared if the next token fits
+		int candidateStart = -1;
+		int candidateEnd = -1;
+		boolean candidateAscii = true;
+
+		int i = 0;
+		// byte order mark
+		if (length >= 3 && content.get(0) == (byte) 0xEF && content.get(1) == (byte) 0xBB
+				&& content.get(2) == (byte) 0xBF) {
+			i = 3;
+		}
+		while (i < length) {
+			byte b = content.get(i);
+			if (b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f') {
+				i++;
+			} else if (b == '/' && i + 1 < length && content.get(i + 1) == '/') {
+				i = skipLineComment(content, i + 2, length);
+			} else if (b == '/' && i + 1 < length && content.get(i + 1) == '*') {
+				i = skipBlockComment(content, i + 2, length);
+			} else if (b == '"' || b == '\'') {
+				i = skipLiteral(content, i, length);
+				candidateStart = -1;
+				previous = OTHER;
+			} else if (b >= '0' && b <= '9') {
+				// number literal, e.g. 0x1F, 1_000L or 1.5e3
+				do {
+					i++;
+				} while (i < length && (IDENTIFIER_PARTS[content.get(i) & 0xFF] || content.get(i) == '.'));
+				candidateStart = -1;
+				previous = OTHER;
+			} else if (IDENTIFIER_PARTS[b & 0xFF]) {
+				int start = i;
+				boolean ascii = true;
+				do {
+					if (content.get(i) < 0) {
+						ascii = false;
+					}
+					i++;
+				} while (i < length && IDENTIFIER_PARTS[content.get(i) & 0xFF]);
+
+				// the identifier follows the candidate, so the candidate is a type
+				candidateStart = -1;
+				int kind = ascii ? keywordKind(content, start, i) : -1;
+				if (previous == DECLARING) {
+					emit(content, start, i, ascii, fileIdentifiers);
+					previous = OTHER;
+				} else if (kind < 0) {
+					if (previous == TYPE) {
+						candidateStart = start;
+						candidateEnd = i;
+						candidateAscii = ascii;
+					}
+					previous = TYPE;
+				} else if (kind == DECLARING && previous == DOT) {
+					// e.g. String.class
+					previous = OTHER;
+				} else {
+					previous = kind;
+				}
+			} else {
+				if (candidateStart >= 0
+						&& (b == '(' || b == '=' || b == ';' || b == ',' || b == ')' || b == ':')) {
+					emit(content, candidateStart, candidateEnd, candidateAscii, fileIdentifiers);
+				}
+				candidateStart = -1;
+				if (b == ']' || (b == '>' && (i == 0 || content.get(i - 1) != '-'))) {
+					previous = TYPE;
+				} else if (b == '.') {
+					previous = DOT;
+				} else {
+					previous = OTHER;
+				}
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * @return the kind of the keyword or -1 if the identifier is no keyword
+	 */
+	private static int keywordKind(ByteBuffer content, int start, int end) {
+		int letter = content.get(start) - 'a';
+		if (letter < 0 || letter >= 26 || KEYWORDS[letter] == null) {
+			return -1;
+		}
+		byte[][] keywords = KEYWORDS[letter];
+		for (int k = 0; k < keywords.length; k++) {
+			byte[] keyword = keywords[k];
+			if (keyword.length == end - start && matches(content, start, keyword)) {
+				return KEYWORD_KINDS[letter][k];
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(ByteBuffer content, int start, byte[] keyword) {
+		for (int j = 1; j < keyword.length; j++) {
+			if (content.get(start + j) != keyword[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int skipLineComment(ByteBuffer content, int i, int length) {
+		while (i < length && content.get(i) != '\n') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipBlockComment(ByteBuffer content, int i, int length) {
+		while (i + 1 < length && !(content.get(i) == '*' && content.get(i + 1) == '/')) {
+			i++;
+		}
+		return Math.min(i + 2, length);
+	}
+
+	/**
+	 * Skips a string, character or text block literal
+	 *
+	 * @return the index after the closing quote
+	 */
+	private static int skipLiteral(ByteBuffer content, int i, int length) {
+		byte quote = content.get(i);
+		if (quote == '"' && i + 2 < length && content.get(i + 1) == '"' && content.get(i + 2) == '"') {
+			i += 3;
+			while (i < length) {
+				byte b = content.get(i);
+				if (b == '\\') {
+					i += 2;
+				} else if (b == '"' && i + 2 < length && content.get(i + 1) == '"' && content.get(i + 2) == '"') {
+					return i + 3;
+				} else {
+					i++;
+				}
+			}
+			return length;
+		}
+		i++;
+		while (i < length) {
+			byte b = content.get(i);
+			if (b == '\\') {
+				i += 2;
+			} else if (b == quote || b == '\n') {
+				return i + 1;
+			} else {
+				i++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Passes a declared name to the reader, if it has not been found before.
+	 * Also adds it to the names of the file, if they are recorded
+	 */
+	private void emit(ByteBuffer content, int start, int end, boolean ascii, Set<String> fileIdentifiers)
+			throws InterruptedException {
+		declarationCount.increment();
+		Charset charset = ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+		String identifier;
+		if (content.hasArray()) {
+			identifier = new String(content.array(), content.arrayOffset() + start, end - start, charset);
+		} else {
+			byte[] bytes = new byte[end - start];
+			for (int j = 0; j < bytes.length; j++) {
+				bytes[j] = content.get(start + j);
+			}
+			identifier = new String(bytes, charset);
+		}
+		if (fileIdentifiers != null) {
+			fileIdentifiers.add(identifier);
+		}
+		if (foundIdentifiers.add(identifier)) {
+			identifiers.put(identifier);
+		}
+	}
+
+	@Override
+	public String nextWord() throws IOException {
+		if (exhausted) {
+			return null;
+		}
+		String identifier;
+		try {
+			identifier = identifiers.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Scanning interrupted");
+		}
+		if (identifier == END) {
+			exhausted = true;
+			IOException cause = failure.get();
+			if (cause != null) {
+				throw cause;
+			}
+			return null;
+		}
+		return identifier;
+	}
+
+	/**
+	 * Stops scanning, if it has not finished yet
+	 */
+	@Override
+	public void close() {
+		walker.interrupt();
+		scanners.shutdownNow();
+		identifiers.clear();
+	}
+
+	/**
+	 * @return the number of scanned Java files, without the reused ones
+	 */
+	public long getFileCount() {
+		return fileCount.sum();
+	}
+
+	/**
+	 * @return the number of unchanged Java files whose names have been taken
+	 *         from the previous run
+	 */
+	public long getReusedFileCount() {
+		return reusedFileCount.sum();
+	}
+
+	/**
+	 * @return the number of scanned bytes
+	 */
+	public long getByteCount() {
+		return byteCount.sum();
+	}
+
+	/**
+	 * @return the number of found declarations, including the names declared
+	 *         in several files
+	 */
+	public long getDeclarationCount() {
+		return declarationCount.sum();
+	}
+
+	/**
+	 * @return the number of distinct declared names
+	 */
+	public int getDistinctCount() {
+		return foundIdentifiers.size();
+	}
+}
@@ -0,0 +1,250 @@
+package de.vetemi.translation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Run which only translates the source words that are new since the previous
+ * run. The results of the previous run are its output files and the words of
+ * its manifest which needed no translation. They are reused as long as the
+ * translation file and the source are the same: a known word is neither
+ * cleaned nor translated again, the translations of the new words are
+ * appended to the output files, and the words which are no longer in the
+ * source are removed from them at the end. If the translation file or the
+ * source has changed, everything is translated and the output files are
+ * replaced.
+ *
+ * @author Valmir Etemi
+ */
+public class IncrementalRun {
+
+	private final TranslationIO translationIO;
+
+	/**
+	 * Manifest of the previous run, empty if it had another source
+	 */
+	private final SourceManifest previousManifest;
+
+	/**
+	 * Manifest of this run, written when the run has finished
+	 */
+	private final SourceManifest manifest;
+
+	/**
+	 * True if the results of the previous run are valid for this run
+	 */
+	private final boolean previousResults;
+
+	/**
+	 * Output of the previous run, the translation per source word or an empty
+	 * String if it has no translation
+	 */
+	private final Map<String, String> previousOutput;
+
+	/**
+	 * Words of the previous run which have not been read from the source yet.
+	 * Removed from the output at the end
+	 */
+	private final Set<String> unseenWords = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder knownWordCount = new LongAdder();
+	private final LongAdder newWordCount = new LongAdder();
+
+	/**
+	 * Reads the manifest and the output of the previous run
+	 *
+	 * @param translationIO
+	 *            IO component with the manifest, the translation and the
+	 *            output files
+	 * @param source
+	 *            the translated source, e.g. the path of the word source file
+	 * @throws IOException
+	 *             if reading the manifest or the output fails
+	 */
+	public IncrementalRun(TranslationIO translationIO, String source) throws IOException {
+		this.translationIO = translationIO;
+		SourceManifest previous = SourceManifest.read(translationIO.getSourceManifestFile());
+		manifest = new SourceManifest();
+		manifest.setSource(source);
+		manifest.setDictionaryFingerprint(SourceManifest.dictionaryFingerprint(translationIO.getTranslationFile()));
+
+		boolean sameSource = previous.getSource().equals(source);
+		previousManifest = sameSource ? previous : new SourceManifest();
+		previousResults = sameSource && previous.getDictionaryFingerprint().equals(manifest.getDictionaryFingerprint());
+		if (previousResults) {
+			previousOutput = translationIO.importOutput();
+			unseenWords.addAll(previousOutput.keySet());
+			unseenWords.addAll(previous.getSkippedWords());
+		} else {
+			previousOutput = new HashMap<String, String>();
+			System.out.println(sameSource ? "Translation file changed, translating all words"
+					: "No previous run of the source, translating all words");
+		}
+	}
+
+	/**
+	 * Checks if the previous run has a result for the word, i.e. a translation
+	 * or the decision that it needs none. Can be called by several threads
+	 *
+	 * @param wordSource
+	 *            a word of the source
+	 * @return true if the word is known and need not be translated again
+	 */
+	public boolean isKnown(String wordSource) {
+		if (previousResults && (previousOutput.containsKey(wordSource)
+				|| previousManifest.getSkippedWords().contains(wordSource))) {
+			unseenWords.remove(wordSource);
+			knownWordCount.increment();
+			return true;
+		}
+		newWordCount.increment();
+		return false;
+	}
+
+	/**
+	 * @param source
+	 *            the words of the source
+	 * @return source which returns only the new words
+	 */
+	public IWordSource filter(IWordSource source) {
+		return new IWordSource() {
+
+			@Override
+			public String nextWord() throws IOException {
+				String wordSource;
+				while ((wordSource = source.nextWord()) != null && isKnown(wordSource)) {
+					// skip known words
+				}
+				return wordSource;
+			}
+
+			@Override
+			public void close() throws IOException {
+				source.close();
+			}
+		};
+	}
+
+	/**
+	 * Remembers the new words which need no translation, as they do not
+	 * appear in the output
+	 *
+	 * @param sourceFilter
+	 *            decides if a source word needs a translation
+	 * @return the same decision which records the rejected words
+	 */
+	public Predicate<String> recordSkipped(Predicate<String> sourceFilter) {
+		return wordSource -> {
+			boolean translatable = sourceFilter.test(wordSource);
+			if (!translatable) {
+				recordSkipped(wordSource);
+			}
+			return translatable;
+		};
+	}
+
+	/**
+	 * Remembers a new word which needs no translation. Can be called by
+	 * several threads
+	 *
+	 * @param wordSource
+	 *            a word of the source
+	 */
+	public void recordSkipped(String wordSource) {
+		manifest.getSkippedWords().add(wordSource);
+	}
+
+	/**
+	 * Checks if a source file is the same as in the previous run, first by
+	 * size and modification time, then by the hash of its content
+	 *
+	 * @param sourceFile
+	 *            the source file, e.g. the word source file
+	 * @return true if the file and the translation file are unchanged and the
+	 *         output of the previous run exists, so it is up to date
+	 * @throws IOException
+	 *             if hashing the file fails
+	 */
+	public boolean isUnchanged(File sourceFile) throws IOException {
+		SourceManifest.FileEntry entry = previousManifest.getFile(sourceFile.getName());
+		if (!previousResults || entry == null || !translationIO.getWordOutputFile().exists()) {
+			return false;
+		}
+		return entry.isUnchanged(sourceFile.length(), sourceFile.lastModified())
+				|| entry.getHash().equals(SourceManifest.hash(sourceFile));
+	}
+
+	/**
+	 * Records the fingerprint of a source file in the manifest of this run
+	 *
+	 * @param sourceFile
+	 *            the source file, e.g. the word source file
+	 * @throws IOException
+	 *             if hashing the file fails
+	 */
+	public void recordFile(File sourceFile) throws IOException {
+		manifest.putFile(sourceFile.getName(), new SourceManifest.FileEntry(sourceFile.length(),
+				sourceFile.lastModified(), SourceManifest.hash(sourceFile), new String[0]));
+	}
+
+	/**
+	 * Removes the words which are no longer in the source from the output and
+	 * writes the manifest of this run. Has to be called after the output of
+	 * the new words has been written
+	 *
+	 * @throws IOException
+	 *             if updating the output or writing the manifest fails
+	 */
+	public void finish() throws IOException {
+		Set<String> removedWords = new HashSet<String>();
+		for (String wordSource : unseenWords) {
+			if (previousOutput.containsKey(wordSource)) {
+				removedWords.add(wordSource);
+			}
+		}
+		if (!removedWords.isEmpty()) {
+			translationIO.removeFromOutput(removedWords);
+		}
+		// the skipped words of a previous run are only valid with the same
+		// translation file, otherwise this run has decided on every word again
+		if (previousResults) {
+			for (String wordSource : previousManifest.getSkippedWords()) {
+				if (!unseenWords.contains(wordSource)) {
+					manifest.getSkippedWords().add(wordSource);
+				}
+			}
+		}
+		manifest.write(translationIO.getSourceManifestFile());
+		System.out.println("Known words: " + knownWordCount.sum() + " New words: " + newWordCount.sum()
+				+ " Removed words: " + unseenWords.size());
+	}
+
+	/**
+	 * @return true if the output files are updated, false if they are replaced
+	 */
+	public boolean hasPreviousResults() {
+		return previousResults;
+	}
+
+	/**
+	 * @return the manifest of the previous run, e.g. with the identifiers of
+	 *         the unchanged files of a source tree
+	 */
+	public SourceManifest getPreviousManifest() {
+		return previousManifest;
+	}
+
+	/**
+	 * @return the manifest of this run
+	 */
+	public SourceManifest getManifest() {
+		return manifest;
+	}
+}
@@ -0,0 +1,192 @@
+package de.vetemi.translation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Trie over the folded German key tokens of the dictionary. Every node which
+ * ends a key token carries the key of the token in the dictionary, so that
+ * walking the trie finds the token and its entries at once.
+ * <p>
+ * The nodes are stored in breadth first order in three arrays: the label of
+ * every node, the index of its first child and its key (0 if no token ends
+ * there). The children of a node are sorted by label and directly followed by
+ * the children of the next node, so the child count is the difference of two
+ * first child indexes. The root is node 0. The arrays are either held in the
+ * heap or read directly from the compiled dictionary.
+ *
+ * @author Valmir Etemi
+ */
+public class KeyTrie {
+
+	/**
+	 * The root node
+	 */
+	public static final int ROOT = 0;
+
+	/**
+	 * Returned if a node has no child with the label
+	 */
+	public static final int NO_NODE = -1;
+
+	/**
+	 * Label per node
+	 */
+	private final CharBuffer labels;
+
+	/**
+	 * Index of the first child per node plus the end of the children of the
+	 * last node
+	 */
+	private final IntBuffer firstChildren;
+
+	/**
+	 * Key per node, 0 if no token ends at the node
+	 */
+	private final IntBuffer keys;
+
+	/**
+	 * Number of nodes
+	 */
+	private final int nodeCount;
+
+	/**
+	 * @param labels
+	 *            label per node
+	 * @param firstChildren
+	 *            index of the first child per node plus one end index
+	 * @param keys
+	 *            key per node, 0 if no token ends at the node
+	 */
+	public KeyTrie(CharBuffer labels, IntBuffer firstChildren, IntBuffer keys) {
+		this.labels = labels;
+		this.firstChildren = firstChildren;
+		this.keys = keys;
+		nodeCount = labels.limit();
+	}
+
+	/**
+	 * Builds the trie over the tokens
+	 *
+	 * @param tokens
+	 *            distinct tokens, sorted
+	 * @param tokenKeys
+	 *            key of each token, not 0
+	 * @return the trie
+	 */
+	public static KeyTrie build(String[] tokens, int[] tokenKeys) {
+		int capacity = Math.max(16, tokens.length * 2);
+		char[] labels = new char[capacity];
+		int[] firstChildren = new int[capacity + 1];
+		int[] keys = new int[capacity];
+		// token range and depth of every node, consumed in breadth first order
+		int[] rangeStarts = new int[capacity];
+		int[] rangeEnds = new int[capacity];
+		int[] depths = new int[capacity];
+
+		int nodeCount = 1;
+		rangeStarts[ROOT] = 0;
+		rangeEnds[ROOT] = tokens.length;
+		for (int node = 0; node < nodeCount; node++) {
+			int start = rangeStarts[node];
+			int end = rangeEnds[node];
+			int depth = depths[node];
+			// the token ending here is sorted first
+			if (start < end && tokens[start].length() == depth) {
+				keys[node] = tokenKeys[start];
+				start++;
+			}
+			firstChildren[node] = nodeCount;
+			while (start < end) {
+				char label = tokens[start].charAt(depth);
+				int childEnd = start + 1;
+				while (childEnd < end && tokens[childEnd].charAt(depth) == label) {
+					childEnd++;
+				}
+				if (nodeCount == labels.length) {
+					int grown = labels.length * 2;
+					labels = Arrays.copyOf(labels, grown);
+					firstChildren = Arrays.copyOf(firstChildren, grown + 1);
+					keys = Arrays.copyOf(keys, grown);
+					rangeStarts = Arrays.copyOf(rangeStarts, grown);
+					rangeEnds = Arrays.copyOf(rangeEnds, grown);
+					depths = Arrays.copyOf(depths, grown);
+				}
+				labels[nodeCount] = label;
+				rangeStarts[nodeCount] = start;
+				rangeEnds[nodeCount] = childEnd;
+				depths[nodeCount] = depth + 1;
+				nodeCount++;
+				start = childEnd;
+			}
+		}
+		firstChildren[nodeCount] = nodeCount;
+		return new KeyTrie(CharBuffer.wrap(labels, 0, nodeCount).slice(),
+				IntBuffer.wrap(firstChildren, 0, nodeCount + 1).slice(), IntBuffer.wrap(keys, 0, nodeCount).slice());
+	}
+
+	/**
+	 * Returns the child of the node with the label
+	 *
+	 * @param node
+	 *            the parent node
+	 * @param label
+	 *            the label of the child
+	 * @return the child or NO_NODE
+	 */
+	public int child(int node, char label) {
+		int low = firstChildren.get(node);
+		int high = firstChildren.get(node + 1) - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			char middleLabel = labels.get(middle);
+			if (middleLabel < label) {
+				low = middle + 1;
+			} else if (middleLabel > label) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return NO_NODE;
+	}
+
+	/**
+	 * @param node
+	 *            the node
+	 * @return the key of the token which ends at the node or 0
+	 */
+	public int key(int node) {
+		return keys.get(node);
+	}
+
+	/**
+	 * Writes the first child indexes, the keys and then the labels
+	 *
+	 * @param output
+	 *            the output
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		for (int i = 0; i <= nodeCount; i++) {
+			output.writeInt(firstChildren.get(i));
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			output.writeInt(keys.get(i));
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			output.writeChar(labels.get(i));
+		}
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+}
@@ -0,0 +1,56 @@
+package de.vetemi.translation;
+
+/**
+ * Translation of one part of a source word, e.g. "Datei" of "DateiPfad"
+ *
+ * @author Valmir Etemi
+ */
+public class PartTranslation {
+
+	private final String part;
+
+	private final String translation;
+
+	private final TranslationSource source;
+
+	/**
+	 * @param part
+	 *            the word part
+	 * @param translation
+	 *            the translation, null or an empty String if nothing found
+	 * @param source
+	 *            where the translation has been found
+	 */
+	public PartTranslation(String part, String translation, TranslationSource source) {
+		this.part = part;
+		this.translation = translation;
+		this.source = source;
+	}
+
+	public String getPart() {
+		return part;
+	}
+
+	/**
+	 * @return the translation, null or an empty String if nothing found
+	 */
+	public String getTranslation() {
+		return translation;
+	}
+
+	public TranslationSource getSource() {
+		return source;
+	}
+
+	/**
+	 * @return true if a translation has been found
+	 */
+	public boolean hasTranslation() {
+		return translation != null && !translation.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return part + "->" + (hasTranslation() ? translation : "None") + " (" + source + ")";
+	}
+}
@@ -0,0 +1,257 @@
+package de.vetemi.translation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fingerprints of the inputs of a run, so that the next run can tell what has
+ * changed since: the translation file, the translated source (a word source
+ * file or a source tree) and every file of the source with its size, last
+ * modification, content hash and the identifiers found in it. Also keeps the
+ * source words which need no translation, as they do not appear in the output
+ * files. The translations themselves are the output files of the run.
+ * <p>
+ * The manifest is a text file with one record per line, the fields separated
+ * by ";": "dictionary;fingerprint", "source;path",
+ * "file;size;last modified;hash;identifiers;path" with space separated
+ * identifiers and "skip;word". Files can be added by several threads.
+ *
+ * @author Valmir Etemi
+ */
+public class SourceManifest {
+
+	/**
+	 * Separator of the fields of a record
+	 */
+	private static final String SEPARATOR = ";";
+
+	/**
+	 * Separator of the identifiers of a file
+	 */
+	private static final String IDENTIFIER_SEPARATOR = " ";
+
+	/**
+	 * Fingerprint and identifiers of a file of the source
+	 */
+	public static class FileEntry {
+
+		private final long size;
+		private final long lastModified;
+		private final String hash;
+		private final String[] identifiers;
+
+		public FileEntry(long size, long lastModified, String hash, String[] identifiers) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.identifiers = identifiers;
+		}
+
+		/**
+		 * @return true if size and last modification are the same, so the
+		 *         content need not be hashed
+		 */
+		public boolean isUnchanged(long size, long lastModified) {
+			return this.size == size && this.lastModified == lastModified;
+		}
+
+		public String getHash() {
+			return hash;
+		}
+
+		public String[] getIdentifiers() {
+			return identifiers;
+		}
+	}
+
+	private String dictionaryFingerprint = "";
+
+	private String source = "";
+
+	/**
+	 * Entry per file, by its path relative to the source
+	 */
+	private final Map<String, FileEntry> files = new ConcurrentHashMap<String, FileEntry>();
+
+	/**
+	 * Source words which need no translation
+	 */
+	private final Set<String> skippedWords = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Reads a manifest
+	 *
+	 * @param manifestFile
+	 *            the manifest file
+	 * @return the manifest, empty if the file does not exist
+	 * @throws IOException
+	 *             if reading the file fails
+	 */
+	public static SourceManifest read(File manifestFile) throws IOException {
+		SourceManifest manifest = new SourceManifest();
+		if (!manifestFile.exists()) {
+			return manifest;
+		}
+		try (BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				if (line.startsWith("file;")) {
+					String[] fields = line.split(SEPARATOR, 6);
+					String[] identifiers = fields[4].isEmpty() ? new String[0]
+							: fields[4].split(IDENTIFIER_SEPARATOR);
+					manifest.files.put(fields[5], new FileEntry(Long.parseLong(fields[1]),
+							Long.parseLong(fields[2]), fields[3], identifiers));
+				} else if (line.startsWith("skip;")) {
+					manifest.skippedWords.add(line.substring("skip;".length()));
+				} else if (line.startsWith("dictionary;")) {
+					manifest.dictionaryFingerprint = line.substring("dictionary;".length());
+				} else if (line.startsWith("source;")) {
+					manifest.source = line.substring("source;".length());
+				}
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest to a temporary file and moves it over the manifest
+	 * file, so that a crashed run leaves the previous manifest
+	 *
+	 * @param manifestFile
+	 *            the manifest file
+	 * @throws IOException
+	 *             if writing the file fails
+	 */
+	public void write(File manifestFile) throws IOException {
+		File tempFile = new File(manifestFile.getPath() + ".tmp");
+		try (BufferedWriter bWriter = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+			bWriter.write("dictionary" + SEPARATOR + dictionaryFingerprint);
+			bWriter.newLine();
+			bWriter.write("source" + SEPARATOR + source);
+			bWriter.newLine();
+			for (Map.Entry<String, FileEntry> file : files.entrySet()) {
+				FileEntry entry = file.getValue();
+				bWriter.write("file" + SEPARATOR + entry.size + SEPARATOR + entry.lastModified + SEPARATOR
+						+ entry.hash + SEPARATOR + String.join(IDENTIFIER_SEPARATOR, entry.identifiers) + SEPARATOR
+						+ file.getKey());
+				bWriter.newLine();
+			}
+			for (String word : skippedWords) {
+				bWriter.write("skip" + SEPARATOR + word);
+				bWriter.newLine();
+			}
+		}
+		try {
+			Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Fingerprint of the translation file. Like the compiled dictionary, a
+	 * changed size or modification time counts as changed
+	 *
+	 * @param translationFile
+	 *            the translation file
+	 * @return the fingerprint
+	 */
+	public static String dictionaryFingerprint(File translationFile) {
+		return translationFile.length() + SEPARATOR + translationFile.lastModified();
+	}
+
+	/**
+	 * Hashes the remaining bytes of the buffer with SHA-256. Does not change
+	 * the position of the buffer
+	 *
+	 * @param content
+	 *            the content of a file
+	 * @return the hash as hex String
+	 */
+	public static String hash(ByteBuffer content) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		digest.update(content.duplicate());
+		StringBuilder hash = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hash.toString();
+	}
+
+	/**
+	 * Hashes the content of a file
+	 *
+	 * @param file
+	 *            the file
+	 * @return the hash as hex String
+	 * @throws IOException
+	 *             if reading the file fails
+	 */
+	public static String hash(File file) throws IOException {
+		return hash(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+	}
+
+	public String getDictionaryFingerprint() {
+		return dictionaryFingerprint;
+	}
+
+	public void setDictionaryFingerprint(String dictionaryFingerprint) {
+		this.dictionaryFingerprint = dictionaryFingerprint;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	/**
+	 * @param path
+	 *            path of the file relative to the source
+	 * @return the entry of the file or null if the file is not known
+	 */
+	public FileEntry getFile(String path) {
+		return files.get(path);
+	}
+
+	/**
+	 * @param path
+	 *            path of the file relative to the source
+	 * @param entry
+	 *            fingerprint and identifiers of the file
+	 */
+	public void putFile(String path, FileEntry entry) {
+		files.put(path, entry);
+	}
+
+	public Set<String> getSkippedWords() {
+		return skippedWords;
+	}
+}
@@ -0,0 +1,527 @@
+package de.vetemi.translation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.lang.model.SourceVersion;
+
+/**
+ * Renames the identifiers of the Java files of a source tree with the
+ * translations of the output file. All source words are matched at once by a
+ * {@link KeyTrie} over them: at the start of every identifier the trie is
+ * walked along its characters, and the identifier is replaced if a source word
+ * ends exactly at the end of the identifier. Matches are only possible at
+ * identifier boundaries, so the automaton needs no failure links and every
+ * file is rewritten in one linear pass, whatever the number of translations.
+ * <p>
+ * Identifiers in code and comments are renamed, string and character literals
+ * are kept. The file of a renamed class is renamed as well. The files are
+ * rewritten in parallel and either replaced or compared with their rewritten
+ * content in a unified diff.
+ *
+ * @author Valmir Etemi
+ */
+public class SourceRewriter {
+
+	/**
+	 * Separator of source word and translation in the output file
+	 */
+	private static final String SEPARATOR = ";";
+
+	/**
+	 * Unchanged lines around the changed lines of a diff hunk
+	 */
+	private final int DIFF_CONTEXT = 3;
+
+	/**
+	 * Trie over the source words. The key of a node is the index of the
+	 * replacement plus one
+	 */
+	private final KeyTrie trie;
+
+	/**
+	 * Translation per source word, in the order of the trie keys
+	 */
+	private final String[] replacements;
+
+	private final LongAdder fileCount = new LongAdder();
+	private final LongAdder changedFileCount = new LongAdder();
+	private final LongAdder replacementCount = new LongAdder();
+
+	/**
+	 * @param translations
+	 *            translation per source word. Both have to be Java identifiers
+	 */
+	public SourceRewriter(Map<String, String> translations) {
+		String[] sourceWords = translations.keySet().toArray(new String[translations.size()]);
+		Arrays.sort(sourceWords);
+		int[] keys = new int[sourceWords.length];
+		replacements = new String[sourceWords.length];
+		for (int i = 0; i < sourceWords.length; i++) {
+			keys[i] = i + 1;
+			replacements[i] = translations.get(sourceWords[i]);
+		}
+		trie = KeyTrie.build(sourceWords, keys);
+	}
+
+	/**
+	 * Reads the translations of an output file, "source word;translation" per
+	 * line. Translations which cannot replace the source word in code are
+	 * skipped: no Java identifier (e.g. with "N/A" parts), a keyword, the
+	 * source word itself or the translation of several source words, which
+	 * would clash after renaming
+	 *
+	 * @param wordOutputFile
+	 *            the output file
+	 * @return translation per source word
+	 * @throws IOException
+	 *             if reading the file fails
+	 */
+	public static Map<String, String> readTranslations(File wordOutputFile) throws IOException {
+		Map<String, String> translations = new LinkedHashMap<String, String>();
+		int skipped = 0;
+		try (BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(wordOutputFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				int separator = line.indexOf(SEPARATOR);
+				if (separator < 0) {
+					continue;
+				}
+				String german = line.substring(0, separator);
+				String english = line.substring(separator + 1).trim();
+				if (isRenamable(german) && isRenamable(english) && !german.equals(english)) {
+					translations.put(german, english);
+				} else if (!english.isEmpty()) {
+					skipped++;
+				}
+			}
+		}
+
+		// two source words renamed to the same name would clash, e.g. as
+		// duplicate declarations, so neither is renamed
+		Map<String, List<String>> sourcesByTranslation = new HashMap<String, List<String>>();
+		for (Map.Entry<String, String> translation : translations.entrySet()) {
+			sourcesByTranslation.computeIfAbsent(translation.getValue(), english -> new ArrayList<String>())
+					.add(translation.getKey());
+		}
+		for (Map.Entry<String, List<String>> sources : sourcesByTranslation.entrySet()) {
+			if (sources.getValue().size() > 1) {
+				System.out.println("Skipped same translation " + sources.getKey() + " for " + sources.getValue());
+				for (String german : sources.getValue()) {
+					translations.remove(german);
+					skipped++;
+				}
+			}
+		}
+		System.out.println("Read translations: " + translations.size() + " Skipped: " + skipped);
+		return translations;
+	}
+
+	private static boolean isRenamable(String word) {
+		return SourceVersion.isIdentifier(word) && !SourceVersion.isKeyword(word);
+	}
+
+	/**
+	 * Rewrites the Java files of the source tree in parallel and replaces the
+	 * changed files. A file is written to a temporary file first and then
+	 * moved over the original, so it is never left half written
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 * @param threadCount
+	 *            number of rewriting threads
+	 * @throws IOException
+	 *             if walking the tree fails
+	 */
+	public void rewriteInPlace(File sourceDirectory, int threadCount) throws IOException {
+		List<Path> files = findJavaFiles(sourceDirectory);
+		forEachParallel(files, threadCount, (index, file) -> {
+			String content = read(file);
+			String rewritten = content == null ? null : rewrite(content);
+			if (rewritten != null) {
+				replace(file, renamedFile(file), rewritten);
+				changedFileCount.increment();
+			}
+		});
+	}
+
+	/**
+	 * Rewrites the Java files of the source tree in parallel and writes the
+	 * changes as unified diff. The files are not changed
+	 *
+	 * @param sourceDirectory
+	 *            root directory of the Java files
+	 * @param threadCount
+	 *            number of rewriting threads
+	 * @param diff
+	 *            receives the diff, the files in the order of their paths
+	 * @throws IOException
+	 *             if walking the tree or writing the diff fails
+	 */
+	public void writeDiff(File sourceDirectory, int threadCount, Writer diff) throws IOException {
+		List<Path> files = findJavaFiles(sourceDirectory);
+		Path root = sourceDirectory.toPath();
+		String[] fileDiffs = new String[files.size()];
+		forEachParallel(files, threadCount, (index, file) -> {
+			String content = read(file);
+			String rewritten = content == null ? null : rewrite(content);
+			if (rewritten != null) {
+				Path renamedFile = renamedFile(file);
+				fileDiffs[index] = diff(relativeName(root, file),
+						renamedFile == null ? null : relativeName(root, renamedFile), content, rewritten);
+				changedFileCount.increment();
+			}
+		});
+		for (String fileDiff : fileDiffs) {
+			if (fileDiff != null) {
+				diff.write(fileDiff);
+			}
+		}
+		diff.flush();
+	}
+
+	/**
+	 * Renames the identifiers of a Java source
+	 *
+	 * @param content
+	 *            the source
+	 * @return the rewritten source or null if nothing has been renamed
+	 */
+	public String rewrite(String content) {
+		StringBuilder rewritten = null;
+		// end of the content which has been appended to the rewritten source
+		int copied = 0;
+		// identifiers in comments are renamed, quotes are no literals there
+		int commentEnd = 0;
+		int length = content.length();
+		int i = 0;
+		while (i < length) {
+			char c = content.charAt(i);
+			if (i >= commentEnd && c == '/' && i + 1 < length && content.charAt(i + 1) == '/') {
+				commentEnd = content.indexOf('\n', i);
+				commentEnd = commentEnd < 0 ? length : commentEnd;
+				i += 2;
+			} else if (i >= commentEnd && c == '/' && i + 1 < length && content.charAt(i + 1) == '*') {
+				commentEnd = content.indexOf("*/", i + 2);
+				commentEnd = commentEnd < 0 ? length : commentEnd + 2;
+				i += 2;
+			} else if (i >= commentEnd && (c == '"' || c == '\'')) {
+				i = skipLiteral(content, i, length);
+			} else if (Character.isJavaIdentifierPart(c)) {
+				int end = identifierEnd(content, i, length);
+				int replacement = Character.isJavaIdentifierStart(c) ? match(content, i, end) : -1;
+				if (replacement >= 0) {
+					if (rewritten == null) {
+						rewritten = new StringBuilder(length + 64);
+					}
+					rewritten.append(content, copied, i).append(replacements[replacement]);
+					copied = end;
+					replacementCount.increment();
+				}
+				i = end;
+			} else {
+				i++;
+			}
+		}
+		if (rewritten == null) {
+			return null;
+		}
+		return rewritten.append(content, copied, length).toString();
+	}
+
+	private static int identifierEnd(String content, int i, int end) {
+		do {
+			i++;
+		} while (i < end && Character.isJavaIdentifierPart(content.charAt(i)));
+		return i;
+	}
+
+	/**
+	 * Walks the trie along the identifier
+	 *
+	 * @return the index of the replacement or -1 if no source word is the
+	 *         identifier
+	 */
+	private int match(String content, int start, int end) {
+		int node = KeyTrie.ROOT;
+		for (int i = start; i < end; i++) {
+			node = trie.child(node, content.charAt(i));
+			if (node == KeyTrie.NO_NODE) {
+				return -1;
+			}
+		}
+		return trie.key(node) - 1;
+	}
+
+	/**
+	 * Skips a string, character or text block literal
+	 *
+	 * @return the index after the closing quote
+	 */
+	private static int skipLiteral(String content, int i, int length) {
+		char quote = content.charAt(i);
+		if (content.startsWith("\"\"\"", i)) {
+			int end = i + 3;
+			while (end < length) {
+				char c = content.charAt(end);
+				if (c == '\\') {
+					end += 2;
+				} else if (content.startsWith("\"\"\"", end)) {
+					return end + 3;
+				} else {
+					end++;
+				}
+			}
+			return length;
+		}
+		i++;
+		while (i < length) {
+			char c = content.charAt(i);
+			if (c == '\\') {
+				i += 2;
+			} else if (c == quote || c == '\n') {
+				return i + 1;
+			} else {
+				i++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Compares the lines of the original and the rewritten source. Renaming
+	 * never adds or removes lines, so the lines correspond one to one
+	 *
+	 * @param name
+	 *            path of the file relative to the source directory
+	 * @param newName
+	 *            path of the renamed file or null if it keeps its name
+	 * @return the unified diff of the file in the format of git
+	 */
+	private String diff(String name, String newName, String content, String rewritten) {
+		String[] lines = content.split("\n", -1);
+		String[] rewrittenLines = rewritten.split("\n", -1);
+		// the split returns an empty line after the last line break
+		int lineCount = content.endsWith("\n") ? lines.length - 1 : lines.length;
+		// index of a last line without line break
+		int unterminated = content.endsWith("\n") ? -1 : lineCount - 1;
+		String target = newName == null ? name : newName;
+		StringBuilder diff = new StringBuilder();
+		diff.append("diff --git a/").append(name).append(" b/").append(target).append('\n');
+		if (newName != null) {
+			diff.append("rename from ").append(name).append('\n');
+			diff.append("rename to ").append(newName).append('\n');
+		}
+		diff.append("--- a/").append(name).append('\n');
+		diff.append("+++ b/").append(target).append('\n');
+		int i = 0;
+		while (i < lineCount) {
+			if (lines[i].equals(rewrittenLines[i])) {
+				i++;
+				continue;
+			}
+			// hunk from the first changed line until no change follows within
+			// the context
+			int hunkStart = Math.max(0, i - DIFF_CONTEXT);
+			int lastChanged = i;
+			for (int j = i + 1; j < lineCount && j <= lastChanged + 2 * DIFF_CONTEXT; j++) {
+				if (!lines[j].equals(rewrittenLines[j])) {
+					lastChanged = j;
+				}
+			}
+			int hunkEnd = Math.min(lineCount, lastChanged + DIFF_CONTEXT + 1);
+			int hunkLength = hunkEnd - hunkStart;
+			diff.append("@@ -").append(hunkStart + 1).append(',').append(hunkLength).append(" +")
+					.append(hunkStart + 1).append(',').append(hunkLength).append(" @@\n");
+			int j = hunkStart;
+			while (j < hunkEnd) {
+				if (lines[j].equals(rewrittenLines[j])) {
+					appendLine(diff, ' ', lines[j], j == unterminated);
+					j++;
+					continue;
+				}
+				// a run of changed lines, first removed and then added
+				int runEnd = j;
+				while (runEnd < hunkEnd && !lines[runEnd].equals(rewrittenLines[runEnd])) {
+					runEnd++;
+				}
+				for (int k = j; k < runEnd; k++) {
+					appendLine(diff, '-', lines[k], k == unterminated);
+				}
+				for (int k = j; k < runEnd; k++) {
+					appendLine(diff, '+', rewrittenLines[k], k == unterminated);
+				}
+				j = runEnd;
+			}
+			i = hunkEnd;
+		}
+		return diff.toString();
+	}
+
+	private static void appendLine(StringBuilder diff, char prefix, String line, boolean unterminated) {
+		diff.append(prefix).append(line).append('\n');
+		if (unterminated) {
+			diff.append("\\ No newline at end of file\n");
+		}
+	}
+
+	private static List<Path> findJavaFiles(File sourceDirectory) throws IOException {
+		try (Stream<Path> files = Files.find(sourceDirectory.toPath(), Integer.MAX_VALUE,
+				(path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().endsWith(".java"))) {
+			return files.sorted().collect(Collectors.toCollection(ArrayList::new));
+		}
+	}
+
+	/**
+	 * Task on a file and its index in the list of files
+	 */
+	private interface FileTask {
+		void run(int index, Path file) throws IOException;
+	}
+
+	/**
+	 * Runs the task for every file with a fork join pool of the given
+	 * parallelism. A file whose task fails is skipped
+	 */
+	private void forEachParallel(List<Path> files, int threadCount, FileTask task) {
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+		try {
+			pool.submit(() -> IntStream.range(0, files.size()).parallel().forEach(index -> {
+				Path file = files.get(index);
+				try {
+					task.run(index, file);
+					fileCount.increment();
+				} catch (IOException e) {
+					System.out.println("Skipped file: " + file + " " + e);
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Rewriting interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Rewriting failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the file as UTF-8
+	 *
+	 * @return the content or null if the file is no UTF-8, it would be
+	 *         corrupted by rewriting
+	 */
+	private static String read(Path file) throws IOException {
+		try {
+			return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(Files.readAllBytes(file)))
+					.toString();
+		} catch (CharacterCodingException e) {
+			System.out.println("Skipped file, no UTF-8: " + file);
+			return null;
+		}
+	}
+
+	/**
+	 * The file of a public class is named like the class, so it is renamed
+	 * with the class
+	 *
+	 * @return the renamed file or null if the file keeps its name or a file
+	 *         of the new name exists already
+	 */
+	private Path renamedFile(Path file) {
+		String fileName = file.getFileName().toString();
+		String className = fileName.substring(0, fileName.length() - ".java".length());
+		if (!SourceVersion.isIdentifier(className)) {
+			return null;
+		}
+		int replacement = match(className, 0, className.length());
+		if (replacement < 0) {
+			return null;
+		}
+		Path renamedFile = file.resolveSibling(replacements[replacement] + ".java");
+		if (Files.exists(renamedFile)) {
+			System.out.println("Not renamed, file exists: " + renamedFile);
+			return null;
+		}
+		return renamedFile;
+	}
+
+	private static String relativeName(Path root, Path file) {
+		return root.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Writes the rewritten source to a temporary file and moves it over the
+	 * file or to its new name
+	 *
+	 * @param renamedFile
+	 *            new name of the file or null if it keeps its name
+	 */
+	private void replace(Path file, Path renamedFile, String rewritten) throws IOException {
+		Path target = renamedFile == null ? file : renamedFile;
+		Path tempFile = file.resolveSibling(file.getFileName() + ".rewrite");
+		Files.write(tempFile, rewritten.getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (renamedFile != null) {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * @return the number of rewritten Java files
+	 */
+	public long getFileCount() {
+		return fileCount.sum();
+	}
+
+	/**
+	 * @return the number of changed Java files
+	 */
+	public long getChangedFileCount() {
+		return changedFileCount.sum();
+	}
+
+	/**
+	 * @return the number of renamed identifiers
+	 */
+	public long getReplacementCount() {
+		return replacementCount.sum();
+	}
+
+	/**
+	 * @return the number of translations
+	 */
+	public int getTranslationCount() {
+		return replacements.length;
+	}
+}
@@ -4,14 +4,20 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import de.vetemi.wordprocessing.IWordProcessor;
 
 /**
  * The IO component for importing and exporting files. Has its files already
@@ -22,15 +28,26 @@ import java.util.HashSet;
 public class TranslationIO {
 
 	/**
-	 * Constant for separating values in the output
+	 * Estimated bytes per line of the word source, used to size the duplicate
+	 * filter when streaming it
 	 */
-	private final String SEPARATOR = ";";
+	private final long AVERAGE_WORD_SOURCE_LINE_LENGTH = 16;
+
+	/**
+	 * Upper bound for sizing the duplicate filter (about 24 MB)
+	 */
+	private final long MAX_EXPECTED_WORD_SOURCE_WORDS = 20000000;
 
 	/**
 	 * File which contains the German to English mapping
 	 */
 	private File germanEnglischTranslationFile;
 
+	/**
+	 * Compiled snapshot of the translation file for a fast startup
+	 */
+	private File compiledDictionaryFile;
+
 	/**
 	 * Source file which contains the words to translate
 	 */
@@ -47,21 +64,30 @@ public class TranslationIO {
 	private File wordOutputNotTranslatedFile;
 
 	/**
-	 * Already translated files for more efficient access
+	 * Fingerprints of the inputs of the last incremental run
+	 */
+	private File sourceManifestFile;
+
+	/**
+	 * Log of the already translated words for more efficient access
 	 */
 	private File memoryTranslationFile;
 
 	/**
-	 * The result of importing translation file will be stored in this map as
-	 * German to English
+	 * Log of the already decompounded words
 	 */
-	private HashMap<String, String> germanToEnglischTranslationMap;
+	private File splitMemoryFile;
 
 	/**
-	 * The result of importing translation file will be stored in this map as
-	 * English to German
+	 * Word processor which cleans the translation file while importing
 	 */
-	private HashMap<String, String> englishToGermanTranslationMap;
+	private IWordProcessor wordProcessor;
+
+	/**
+	 * The result of importing translation file. Either the parsed index or the
+	 * memory mapped compiled dictionary
+	 */
+	private ITranslationDictionary translationDictionary;
 
 	/**
 	 * Contains the words to translate after importing
@@ -69,22 +95,48 @@ public class TranslationIO {
 	private HashSet<String> translationSourceSet;
 
 	/**
-	 * Contains already translated words as map
+	 * Contains already translated words, backed by the memory log
+	 */
+	private TranslationMemory translationMemory;
+
+	/**
+	 * Contains the parts of already decompounded words, backed by the split
+	 * memory log
 	 */
-	private HashMap<String, String> memoryTranslationMap;
+	private TranslationMemory splitMemory;
+
+	/**
+	 * Number of translations of the memory which are cached in the heap
+	 */
+	private int memoryCacheCapacity = TranslationMemory.DEFAULT_CACHE_CAPACITY;
+
+	public TranslationIO(IWordProcessor wordProcessor) {
+		this(wordProcessor, new File("resource"));
+	}
 
-	public TranslationIO() {
+	/**
+	 * @param wordProcessor
+	 *            word processor which cleans the translation file
+	 * @param resourceDirectory
+	 *            directory which contains the translation file, the word
+	 *            source and receives the output
+	 */
+	public TranslationIO(IWordProcessor wordProcessor, File resourceDirectory) {
 		super();
-		germanToEnglischTranslationMap = new HashMap<String, String>();
-		englishToGermanTranslationMap = new HashMap<String, String>();
-		memoryTranslationMap = new HashMap<String, String>();
+		this.wordProcessor = wordProcessor;
+		translationDictionary = new TranslationIndex();
+		translationMemory = new TranslationMemory();
+		splitMemory = new TranslationMemory();
 		translationSourceSet = new HashSet<String>();
 
-		germanEnglischTranslationFile = new File("resource/GermanEnglishTranslations.txt");
-		wordSourceFile = new File("resource/WordSource.txt");
-		wordOutputFile = new File("resource/WordOutput.txt");
-		wordOutputNotTranslatedFile = new File("resource/WordOutputNotTranslated.txt");
-		memoryTranslationFile = new File("resource/TranslationMemory.txt");
+		germanEnglischTranslationFile = new File(resourceDirectory, "GermanEnglishTranslations.txt");
+		compiledDictionaryFile = new File(resourceDirectory, "GermanEnglishTranslations.dict");
+		wordSourceFile = new File(resourceDirectory, "WordSource.txt");
+		wordOutputFile = new File(resourceDirectory, "WordOutput.txt");
+		wordOutputNotTranslatedFile = new File(resourceDirectory, "WordOutputNotTranslated.txt");
+		memoryTranslationFile = new File(resourceDirectory, "TranslationMemory.txt");
+		splitMemoryFile = new File(resourceDirectory, "SplitMemory.txt");
+		sourceManifestFile = new File(resourceDirectory, "SourceManifest.txt");
 	}
 
 	/**
@@ -114,12 +166,239 @@ public class TranslationIO {
 	}
 
 	/**
-	 * Imports the translation files and stores the result in the English to
-	 * German map and German to English map
+	 * Opens the word source file for reading its distinct words one by one,
+	 * e.g. in the streaming pipeline instead of importing it as set. Removing
+	 * the duplicates needs memory bounded by the size of the file, not by the
+	 * number of words
+	 *
+	 * @return reader of the distinct words of the word source file
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public DistinctWordReader openWordSource() throws IOException {
+		return openWordSource(wordSourceFile);
+	}
+
+	/**
+	 * Opens another word source file for reading its distinct words one by
+	 * one, e.g. the files of a batch
+	 *
+	 * @param sourceFile
+	 *            the word source file, one word per line
+	 * @return reader of the distinct words of the file
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public DistinctWordReader openWordSource(File sourceFile) throws IOException {
+		BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(sourceFile), "UTF-8"));
+		long expectedWords = Math.min(sourceFile.length() / AVERAGE_WORD_SOURCE_LINE_LENGTH,
+				MAX_EXPECTED_WORD_SOURCE_WORDS);
+		return new DistinctWordReader(bReader, expectedWords, new File(System.getProperty("java.io.tmpdir")));
+	}
+
+	/**
+	 * Opens the writer for WordOutput.tsv and WordOutputNotTranslated.tsv.
+	 * Existing output files are replaced
+	 *
+	 * @return the output writer
+	 * @throws IOException
+	 *             if the files cannot be created
+	 */
+	public TranslationOutputWriter openOutputWriter() throws IOException {
+		return openOutputWriter(wordOutputFile, wordOutputNotTranslatedFile);
+	}
+
+	/**
+	 * Opens the writer for other output files, e.g. the ones of a batch.
+	 * Existing output files are replaced
+	 *
+	 * @param outputFile
+	 *            receives the translated words
+	 * @param notTranslatedFile
+	 *            receives the words without translation
+	 * @return the output writer
+	 * @throws IOException
+	 *             if the files cannot be created
+	 */
+	public TranslationOutputWriter openOutputWriter(File outputFile, File notTranslatedFile) throws IOException {
+		return new TranslationOutputWriter(outputFile, notTranslatedFile);
+	}
+
+	/**
+	 * Opens the writer for output files which are either replaced or
+	 * extended, e.g. by an incremental run
+	 *
+	 * @param outputFile
+	 *            receives the translated words
+	 * @param notTranslatedFile
+	 *            receives the words without translation
+	 * @param append
+	 *            true to append to existing output files
+	 * @return the output writer
+	 * @throws IOException
+	 *             if the files cannot be opened
+	 */
+	public TranslationOutputWriter openOutputWriter(File outputFile, File notTranslatedFile, boolean append)
+			throws IOException {
+		return new TranslationOutputWriter(outputFile, notTranslatedFile, append);
+	}
+
+	/**
+	 * Imports WordOutput.tsv and WordOutputNotTranslated.tsv, e.g. the results
+	 * of the previous run
+	 *
+	 * @return the translation per source word, an empty String for the words
+	 *         without translation
+	 * @throws IOException
+	 *             if reading the files fails
+	 */
+	public HashMap<String, String> importOutput() throws IOException {
+		HashMap<String, String> output = new HashMap<String, String>();
+		importOutput(wordOutputNotTranslatedFile, output);
+		importOutput(wordOutputFile, output);
+		System.out.println("Finished importing previous output. Size:" + output.size());
+		return output;
+	}
+
+	private void importOutput(File outputFile, HashMap<String, String> output) throws IOException {
+		if (!outputFile.exists()) {
+			return;
+		}
+		try (BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(outputFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				int separator = line.indexOf(';');
+				if (separator >= 0) {
+					output.put(line.substring(0, separator), line.substring(separator + 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the lines of the source words from WordOutput.tsv and
+	 * WordOutputNotTranslated.tsv, e.g. of the words which are no longer in
+	 * the source
+	 *
+	 * @param wordSources
+	 *            the source words to remove
+	 * @throws IOException
+	 *             if rewriting the files fails
+	 */
+	public void removeFromOutput(Set<String> wordSources) throws IOException {
+		removeFromOutput(wordOutputFile, wordSources);
+		removeFromOutput(wordOutputNotTranslatedFile, wordSources);
+	}
+
+	private void removeFromOutput(File outputFile, Set<String> wordSources) throws IOException {
+		if (!outputFile.exists()) {
+			return;
+		}
+		File tempFile = new File(outputFile.getPath() + ".tmp");
+		try (BufferedReader bReader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(outputFile), StandardCharsets.UTF_8));
+				BufferedWriter bWriter = new BufferedWriter(
+						new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = bReader.readLine()) != null) {
+				int separator = line.indexOf(';');
+				if (separator < 0 || !wordSources.contains(line.substring(0, separator))) {
+					bWriter.write(line);
+					bWriter.newLine();
+				}
+			}
+		}
+		try {
+			Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Imports the translation data. Maps the compiled dictionary if it is up to
+	 * date, otherwise parses the translation file and compiles it for the next
+	 * runs
 	 */
 	public void importTranslationMaps() {
+		CompiledDictionary compiledDictionary = openCompiledDictionary();
+		if (compiledDictionary != null) {
+			translationDictionary = compiledDictionary;
+			System.out.println("Mapped compiled dictionary:" + compiledDictionaryFile.getName() + " Size:"
+					+ compiledDictionary.getEntryCount() + " Indexed words:" + compiledDictionary.size());
+			return;
+		}
+
+		TranslationIndex translationIndex = parseTranslationFile();
+		translationDictionary = translationIndex;
+		if (!translationIndex.isEmpty()) {
+			writeCompiledDictionary(translationIndex);
+		}
+	}
+
+	/**
+	 * Parses the translation file and writes the compiled dictionary, even if
+	 * the existing one is up to date
+	 */
+	public void compileDictionary() {
+		TranslationIndex translationIndex = parseTranslationFile();
+		translationDictionary = translationIndex;
+		writeCompiledDictionary(translationIndex);
+	}
+
+	/**
+	 * Maps the compiled dictionary if it exists and has been compiled from the
+	 * current translation file
+	 *
+	 * @return the compiled dictionary or null if it must be compiled again
+	 */
+	private CompiledDictionary openCompiledDictionary() {
+		if (!compiledDictionaryFile.exists()) {
+			return null;
+		}
+		try {
+			CompiledDictionary compiledDictionary = CompiledDictionary.open(compiledDictionaryFile,
+					germanEnglischTranslationFile);
+			if (compiledDictionary == null) {
+				System.out.println("Compiled dictionary is outdated:" + compiledDictionaryFile.getName());
+			}
+			return compiledDictionary;
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the parsed index as compiled dictionary
+	 *
+	 * @param translationIndex
+	 *            the parsed translation file
+	 */
+	private void writeCompiledDictionary(TranslationIndex translationIndex) {
+		System.out.println("Start compiling dictionary:" + compiledDictionaryFile.getName());
+		try {
+			CompiledDictionary.compile(translationIndex, germanEnglischTranslationFile, compiledDictionaryFile);
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+		System.out.println("Finished compiling dictionary. Size:" + compiledDictionaryFile.length());
+	}
+
+	/**
+	 * Parses the translation file into the German to English index and the
+	 * English values. Every German to English entry is cleaned and tokenized
+	 * once here, entries which can never be a translation are dropped
+	 *
+	 * @return the parsed index
+	 */
+	private TranslationIndex parseTranslationFile() {
 		System.out
 				.println("Start importing german english translation file:" + germanEnglischTranslationFile.getName());
+		TranslationIndex translationIndex = new TranslationIndex();
 		try {
 			BufferedReader bReader = new BufferedReader(
 					new InputStreamReader(new FileInputStream(germanEnglischTranslationFile), "UTF-8"));
@@ -128,8 +407,14 @@ public class TranslationIO {
 				if (!line.isEmpty()) {
 					String[] lineSplit = line.split("\t");
 					if (lineSplit.length > 1) {
-						germanToEnglischTranslationMap.put(lineSplit[0].toLowerCase(), lineSplit[1].toLowerCase());
-						englishToGermanTranslationMap.put(lineSplit[1].toLowerCase(), lineSplit[0].toLowerCase());
+						String germanKey = lineSplit[0].toLowerCase();
+						String englishValue = lineSplit[1].toLowerCase();
+						translationIndex.addEnglishWord(englishValue);
+
+						DictionaryEntry entry = DictionaryEntry.normalize(germanKey, englishValue, wordProcessor);
+						if (entry != null) {
+							translationIndex.addEntry(entry);
+						}
 					}
 				}
 			}
@@ -137,43 +422,29 @@ public class TranslationIO {
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 		}
-		System.out.println(
-				"Finished importing german english translation file. Size:" + germanToEnglischTranslationMap.size());
+		System.out.println("Finished importing german english translation file. Size:"
+				+ translationIndex.getEntryCount() + " Indexed words:" + translationIndex.size());
+		return translationIndex;
 	}
 
 	/**
-	 * Imports the already translated words from previous runs for a more
-	 * efficient access.
+	 * Opens the memory logs of the already translated and decompounded words
+	 * from previous runs for a more efficient access. New translations and
+	 * splits are appended to the logs while translating
 	 */
 	public void importMemoryMap() {
 		System.out.println("Start importing already translated words :" + memoryTranslationFile.getName());
-
-		if (memoryTranslationMap == null) {
-			memoryTranslationMap = new HashMap<String, String>();
+		if (!memoryTranslationFile.exists()) {
+			System.out.println("No memory map");
 		}
-
 		try {
-			BufferedReader bReader = new BufferedReader(
-					new InputStreamReader(new FileInputStream(memoryTranslationFile), "UTF-8"));
-
-			while (bReader.ready()) {
-				String line = bReader.readLine();
-				if (!line.isEmpty()) {
-					String[] lineSplit = line.split(SEPARATOR);
-					if (lineSplit.length > 1) {
-						memoryTranslationMap.put(lineSplit[0], lineSplit[1]);
-					} else {
-						memoryTranslationMap.put(lineSplit[0], "");
-					}
-				}
-			}
-			bReader.close();
-		} catch (FileNotFoundException notFoundException) {
-			System.out.println("No memory map");
+			translationMemory = TranslationMemory.open(memoryTranslationFile, memoryCacheCapacity);
+			splitMemory = TranslationMemory.open(splitMemoryFile, memoryCacheCapacity);
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 		}
-		System.out.println("Finished importing already translated words. Size:" + memoryTranslationMap.size());
+		System.out.println("Finished importing already translated words. Size:" + translationMemory.size()
+				+ " Decompounded words:" + splitMemory.size());
 	}
 
 	/**
@@ -184,47 +455,30 @@ public class TranslationIO {
 	 *            the map which contains the translated words
 	 */
 	public void exportOutput(HashMap<String, String> translationOutputMap) {
+		exportOutput(translationOutputMap, false);
+	}
+
+	/**
+	 * Takes the output map and writes result of translation in either
+	 * WordOutput.tsv or WordOutputNotTranslated.tsv
+	 * 
+	 * @param translationOutputMap
+	 *            the map which contains the translated words
+	 * @param append
+	 *            true to append to the output files instead of replacing
+	 *            them, e.g. the new words of an incremental run
+	 */
+	public void exportOutput(HashMap<String, String> translationOutputMap, boolean append) {
 		System.out.println("Start exporting translation output file: " + wordOutputFile.getName() + " and "
 				+ wordOutputNotTranslatedFile.getName());
 
-		try {
-			if (wordOutputFile.exists()) {
-				wordOutputFile.delete();
-			}
-			wordOutputFile.createNewFile();
-
-			if (wordOutputNotTranslatedFile.exists()) {
-				wordOutputNotTranslatedFile.delete();
+		try (TranslationOutputWriter outputWriter = openOutputWriter(wordOutputFile, wordOutputNotTranslatedFile,
+				append)) {
+			for (Map.Entry<String, String> translation : translationOutputMap.entrySet()) {
+				outputWriter.write(translation.getKey(), translation.getValue());
 			}
-			wordOutputNotTranslatedFile.createNewFile();
-
-			BufferedWriter bWriterOutput = new BufferedWriter(
-					new OutputStreamWriter(new FileOutputStream(wordOutputFile), "UTF-8"));
-			BufferedWriter bWriterNotTranslated = new BufferedWriter(
-					new OutputStreamWriter(new FileOutputStream(wordOutputNotTranslatedFile), "UTF-8"));
-			translationOutputMap.forEach((german, english) -> {
-				try {
-					if (english.isEmpty()) {
-						bWriterNotTranslated.write(german);
-						bWriterNotTranslated.write(SEPARATOR);
-						bWriterNotTranslated.write(english);
-						bWriterNotTranslated.newLine();
-					} else {
-						bWriterOutput.write(german);
-						bWriterOutput.write(SEPARATOR);
-						bWriterOutput.write(english);
-						bWriterOutput.newLine();
-					}
-
-				} catch (Exception e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			});
-			bWriterNotTranslated.close();
-			bWriterOutput.close();
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
+			System.out.println("Cannot export translation output file: " + wordOutputFile.getName());
 			e.printStackTrace();
 		}
 
@@ -232,57 +486,67 @@ public class TranslationIO {
 	}
 
 	/**
-	 * Exports all found translations for a more efficient future access
+	 * Appends the translations found since the last batch to the memory log
+	 * and closes it. Most translations have already been appended while
+	 * translating
 	 * 
-	 * @param memoryTranslations
-	 *            Map containing found translation
+	 * @param memory
+	 *            the memory containing found translations
 	 */
-	public void exportMemoryTranslation(HashMap<String, String> memoryTranslations) {
-		System.out.println("Start exporting already found output file: " + memoryTranslationFile.getName());
+	public void exportMemoryTranslation(TranslationMemory memory) {
+		closeMemory(memoryTranslationFile, memory);
+	}
 
-		try {
-			if (memoryTranslationFile.exists()) {
-				memoryTranslationFile.delete();
-			}
-			memoryTranslationFile.createNewFile();
-
-			BufferedWriter bWriter = new BufferedWriter(
-					new OutputStreamWriter(new FileOutputStream(memoryTranslationFile), "UTF-8"));
-			memoryTranslations.forEach((source, translation) -> {
-				try {
-					bWriter.write(source);
-					bWriter.write(SEPARATOR);
-					bWriter.write(translation);
-					bWriter.newLine();
+	/**
+	 * Appends the splits found since the last batch to the split memory log
+	 * and closes it
+	 * 
+	 * @param memory
+	 *            the memory containing decompounded words
+	 */
+	public void exportSplitMemory(TranslationMemory memory) {
+		closeMemory(splitMemoryFile, memory);
+	}
 
-				} catch (Exception e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			});
-			bWriter.close();
+	private void closeMemory(File memoryFile, TranslationMemory memory) {
+		System.out.println("Start exporting already found output file: " + memoryFile.getName());
+
+		try {
+			memory.close();
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
 
-		System.out.println("End exporting already translated file");
+		System.out.println("Memory cache hits:" + memory.getCacheHits() + " Disk hits:" + memory.getDiskHits()
+				+ " Misses:" + memory.getMisses() + " Evictions:" + memory.getEvictions());
+		System.out.println("End exporting already translated file. Records:" + memory.getLogRecordCount());
 	}
 
-	public HashMap<String, String> getGermanToEnglischTranslationMap() {
-		return germanToEnglischTranslationMap;
-	}
-
-	public void setGermanToEnglischTranslationMap(HashMap<String, String> germanToEnglischTranslationMap) {
-		this.germanToEnglischTranslationMap = germanToEnglischTranslationMap;
+	/**
+	 * Compacts the memory logs, so that they contain one record per translated
+	 * or decompounded word
+	 */
+	public void compactMemoryTranslation() {
+		compactMemory(memoryTranslationFile);
+		compactMemory(splitMemoryFile);
 	}
 
-	public HashMap<String, String> getEnglishToGermanTranslationMap() {
-		return englishToGermanTranslationMap;
+	private void compactMemory(File memoryFile) {
+		System.out.println("Start compacting already found output file: " + memoryFile.getName());
+		try {
+			TranslationMemory memory = TranslationMemory.open(memoryFile, memoryCacheCapacity);
+			int recordCount = memory.getLogRecordCount();
+			memory.compact();
+			memory.close();
+			System.out.println("Records before:" + recordCount + " after:" + memory.getLogRecordCount());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		System.out.println("End compacting already translated file");
 	}
 
-	public void setEnglishToGermanTranslationMap(HashMap<String, String> englishToGermanTranslationMap) {
-		this.englishToGermanTranslationMap = englishToGermanTranslationMap;
+	public ITranslationDictionary getTranslationDictionary() {
+		return translationDictionary;
 	}
 
 	public HashSet<String> getTranslationSourceSet() {
@@ -293,8 +557,36 @@ public class TranslationIO {
 		this.translationSourceSet = translationSourceSet;
 	}
 
-	public HashMap<String, String> getAlreadyFoundTranslationMap() {
-		return memoryTranslationMap;
+	public File getTranslationFile() {
+		return germanEnglischTranslationFile;
+	}
+
+	public File getSourceManifestFile() {
+		return sourceManifestFile;
+	}
+
+	public File getWordSourceFile() {
+		return wordSourceFile;
+	}
+
+	public File getWordOutputFile() {
+		return wordOutputFile;
+	}
+
+	public File getWordOutputNotTranslatedFile() {
+		return wordOutputNotTranslatedFile;
+	}
+
+	public TranslationMemory getTranslationMemory() {
+		return translationMemory;
+	}
+
+	public TranslationMemory getSplitMemory() {
+		return splitMemory;
+	}
+
+	public void setMemoryCacheCapacity(int memoryCacheCapacity) {
+		this.memoryCacheCapacity = memoryCacheCapacity;
 	}
 
 }
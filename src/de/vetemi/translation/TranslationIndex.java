@@ -0,0 +1,245 @@
+package de.vetemi.translation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index over the normalized entries of the translation file. Maps
+ * every folded key token to the entries whose key contains this token or one
+ * of its umlaut variants. Is
+ * filled once while importing the translation file, so that looking up a word
+ * only touches the matching entries instead of the whole dictionary.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationIndex implements ITranslationDictionary {
+
+	/**
+	 * Contains the folded key tokens and the entries which contain them. The
+	 * entries keep the order of the translation file
+	 */
+	private HashMap<String, List<DictionaryEntry>> tokenIndex;
+
+	/**
+	 * All indexed entries in the order of the translation file
+	 */
+	private List<DictionaryEntry> entries;
+
+	/**
+	 * The English values of the translation file which are added to the
+	 * lexicon when it is needed
+	 */
+	private List<String> englishWords;
+
+	/**
+	 * Contains the English values of the translation file for cleaning the
+	 * source words. Built from the added values on first use
+	 */
+	private volatile EnglishLexicon englishLexicon;
+
+	/**
+	 * Trie over the folded key tokens, built on first use. The key of a token
+	 * is its index in the token entries plus one
+	 */
+	private volatile KeyTrie keyTrie;
+
+	/**
+	 * The entries of the key tokens in the order of the keys of the trie
+	 */
+	private List<List<DictionaryEntry>> keyTrieEntries;
+
+	public TranslationIndex() {
+		tokenIndex = new HashMap<String, List<DictionaryEntry>>();
+		entries = new ArrayList<DictionaryEntry>();
+		englishWords = new ArrayList<String>();
+	}
+
+	/**
+	 * Adds the entry for every folded token of its cleaned key
+	 *
+	 * @param entry
+	 *            the normalized entry
+	 */
+	public void addEntry(DictionaryEntry entry) {
+		if (keyTrie != null) {
+			throw new IllegalStateException("Key trie has already been built");
+		}
+		for (String foldedKeyToken : entry.getFoldedKeyTokens()) {
+			List<DictionaryEntry> tokenEntries = tokenIndex.get(foldedKeyToken);
+			if (tokenEntries == null) {
+				tokenEntries = new ArrayList<DictionaryEntry>(1);
+				tokenIndex.put(foldedKeyToken, tokenEntries);
+			}
+			// two variants of a word in one key are still one entry
+			if (tokenEntries.isEmpty() || tokenEntries.get(tokenEntries.size() - 1) != entry) {
+				tokenEntries.add(entry);
+			}
+		}
+		entries.add(entry);
+	}
+
+	/**
+	 * Adds a raw English value of the translation file
+	 *
+	 * @param englishWord
+	 *            lower case English value
+	 */
+	public synchronized void addEnglishWord(String englishWord) {
+		if (englishLexicon != null) {
+			throw new IllegalStateException("English lexicon has already been built");
+		}
+		englishWords.add(englishWord);
+	}
+
+	/**
+	 * Returns all entries whose cleaned key contains the given word or one of
+	 * its umlaut variants
+	 *
+	 * @param foldedWord
+	 *            the folded word to look up
+	 * @return the matching entries or an empty list
+	 */
+	public List<DictionaryEntry> getEntries(String foldedWord) {
+		List<DictionaryEntry> tokenEntries = tokenIndex.get(foldedWord);
+		if (tokenEntries == null) {
+			return Collections.emptyList();
+		}
+		return tokenEntries;
+	}
+
+	@Override
+	public List<String[]> getValueTokens(String foldedWord, String word) {
+		return getValueTokens(getEntries(foldedWord), word);
+	}
+
+	@Override
+	public List<String[]> getValueTokens(int key, String word) {
+		getKeyTrie();
+		return getValueTokens(keyTrieEntries.get(key - 1), word);
+	}
+
+	@Override
+	public String[] getTranslations(String foldedWord, String word) {
+		return TranslationRanking.rank(getValueTokens(foldedWord, word), TranslationRanking.TOP_TRANSLATIONS);
+	}
+
+	@Override
+	public String[] getTranslations(int key, String word) {
+		return TranslationRanking.rank(getValueTokens(key, word), TranslationRanking.TOP_TRANSLATIONS);
+	}
+
+	private List<String[]> getValueTokens(List<DictionaryEntry> tokenEntries, String word) {
+		// prefer the entries with exactly this spelling
+		boolean hasExactEntry = false;
+		for (DictionaryEntry entry : tokenEntries) {
+			if (entry.containsKeyToken(word)) {
+				hasExactEntry = true;
+				break;
+			}
+		}
+
+		List<String[]> valueTokens = new ArrayList<String[]>(tokenEntries.size());
+		for (DictionaryEntry entry : tokenEntries) {
+			if (!hasExactEntry || entry.containsKeyToken(word)) {
+				valueTokens.add(entry.getValueTokens());
+			}
+		}
+		return valueTokens;
+	}
+
+	@Override
+	public boolean containsSpelling(String foldedWord, String word) {
+		for (DictionaryEntry entry : getEntries(foldedWord)) {
+			if (entry.containsKeyToken(word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean containsEnglishWord(CharSequence word) {
+		return getEnglishLexicon().contains(word);
+	}
+
+	/**
+	 * Returns the trie over the folded key tokens. Builds it on the first call,
+	 * no entries can be added afterwards
+	 */
+	@Override
+	public KeyTrie getKeyTrie() {
+		KeyTrie trie = keyTrie;
+		if (trie == null) {
+			synchronized (this) {
+				trie = keyTrie;
+				if (trie == null) {
+					String[] tokens = tokenIndex.keySet().toArray(new String[tokenIndex.size()]);
+					Arrays.sort(tokens);
+					int[] keys = new int[tokens.length];
+					keyTrieEntries = new ArrayList<List<DictionaryEntry>>(tokens.length);
+					for (int i = 0; i < tokens.length; i++) {
+						keys[i] = i + 1;
+						keyTrieEntries.add(tokenIndex.get(tokens[i]));
+					}
+					trie = KeyTrie.build(tokens, keys);
+					keyTrie = trie;
+				}
+			}
+		}
+		return trie;
+	}
+
+	/**
+	 * @return all indexed entries in the order of the translation file
+	 */
+	public List<DictionaryEntry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return the key tokens with their entries
+	 */
+	public Map<String, List<DictionaryEntry>> getTokenIndex() {
+		return Collections.unmodifiableMap(tokenIndex);
+	}
+
+	/**
+	 * Returns the lexicon of the English values. Builds it on the first call,
+	 * no English values can be added afterwards
+	 *
+	 * @return the English values of the translation file
+	 */
+	public EnglishLexicon getEnglishLexicon() {
+		EnglishLexicon lexicon = englishLexicon;
+		if (lexicon == null) {
+			synchronized (this) {
+				lexicon = englishLexicon;
+				if (lexicon == null) {
+					lexicon = EnglishLexicon.build(englishWords);
+					englishLexicon = lexicon;
+					englishWords = null;
+				}
+			}
+		}
+		return lexicon;
+	}
+
+	@Override
+	public int size() {
+		return tokenIndex.size();
+	}
+
+	@Override
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+}
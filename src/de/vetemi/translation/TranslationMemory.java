@@ -0,0 +1,738 @@
+package de.vetemi.translation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Contains already translated words as well as words which do not have a
+ * translation in two tiers: a size bounded in-heap cache of the recently used
+ * translations over an append-only log file. The heap holds the cache and a
+ * compact index from the hash of a word to the offset of its latest record in
+ * the log, not the words themselves; translations which are not cached are
+ * read from the log.
+ * <p>
+ * New translations are appended to the log in batches while translating, so a
+ * crash loses at most the last batch. A record is one line
+ * "source;translation" in which backslashes, separators and line breaks are
+ * escaped. A torn last record of a crashed run is cut off when opening the
+ * log. The log is compacted by rewriting it with the latest records, on demand
+ * or when closing it with too many superseded records.
+ * <p>
+ * Can be shared by several translating threads.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationMemory implements Closeable {
+
+	/**
+	 * Constant for separating source and translation of a record
+	 */
+	private static final byte SEPARATOR = ';';
+
+	/**
+	 * Constant for escaping separators and line breaks
+	 */
+	private static final byte ESCAPE = '\\';
+
+	/**
+	 * Default number of translations in the in-heap cache
+	 */
+	public static final int DEFAULT_CACHE_CAPACITY = 100000;
+
+	/**
+	 * Number of new translations which are appended to the log at once
+	 */
+	private final int FLUSH_BATCH_SIZE = 1000;
+
+	/**
+	 * The log is compacted when closing it if it has more records than this
+	 * factor times the number of words
+	 */
+	private final int COMPACTION_FACTOR = 2;
+
+	/**
+	 * Number of independently locked cache segments
+	 */
+	private final int CACHE_SEGMENT_COUNT = 16;
+
+	/**
+	 * The log file, null if the memory lives in the heap only
+	 */
+	private final File logFile;
+
+	/**
+	 * Reads and appends the records of the log
+	 */
+	private FileChannel logChannel;
+
+	/**
+	 * Length of the log, the offset of the next record
+	 */
+	private long logLength;
+
+	/**
+	 * Number of records in the log
+	 */
+	private int logRecordCount;
+
+	/**
+	 * Recently used translations, least recently used ones are evicted per
+	 * segment
+	 */
+	private final CacheSegment[] cacheSegments;
+
+	/**
+	 * New translations which have not been appended to the log yet. Not used
+	 * without log file, then the cache holds all translations
+	 */
+	private final ConcurrentHashMap<String, String> pendingTranslations = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Number of pending translations since the last flush
+	 */
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	/**
+	 * Hashes of the indexed words, open addressing with linear probing
+	 */
+	private int[] indexHashes = new int[1024];
+
+	/**
+	 * Offsets of the latest records of the indexed words plus one, 0 marks an
+	 * empty slot
+	 */
+	private long[] indexOffsets = new long[1024];
+
+	/**
+	 * Number of indexed words
+	 */
+	private int indexSize;
+
+	/**
+	 * Guards the index and the log channel against flushing and compacting
+	 */
+	private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder diskHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates an empty memory which is not backed by a log file. All
+	 * translations stay in the heap
+	 */
+	public TranslationMemory() {
+		this(null, Integer.MAX_VALUE);
+	}
+
+	private TranslationMemory(File logFile, int cacheCapacity) {
+		this.logFile = logFile;
+		cacheSegments = new CacheSegment[CACHE_SEGMENT_COUNT];
+		int segmentCapacity = Math.max(1, cacheCapacity / CACHE_SEGMENT_COUNT);
+		for (int i = 0; i < CACHE_SEGMENT_COUNT; i++) {
+			cacheSegments[i] = new CacheSegment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * Opens the memory of the log file. Indexes the log sequentially and cuts
+	 * off a torn last record. A missing log is created
+	 *
+	 * @param logFile
+	 *            the log file
+	 * @param cacheCapacity
+	 *            number of translations which are cached in the heap
+	 * @return the memory with the translations of the log
+	 * @throws IOException
+	 *             if reading the log fails
+	 */
+	public static TranslationMemory open(File logFile, int cacheCapacity) throws IOException {
+		TranslationMemory memory = new TranslationMemory(logFile, cacheCapacity);
+		memory.logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			memory.logLength = memory.scanLog(logFile, (offset, source, translation) -> {
+				memory.indexRecord(source, offset);
+				memory.logRecordCount++;
+			});
+			if (memory.logLength < memory.logChannel.size()) {
+				System.out.println("Cutting off torn record of translation memory at byte " + memory.logLength);
+				memory.logChannel.truncate(memory.logLength);
+			}
+		} catch (IOException e) {
+			memory.logChannel.close();
+			throw e;
+		}
+		return memory;
+	}
+
+	/**
+	 * Returns the translation of the word
+	 *
+	 * @param word
+	 *            the word
+	 * @return the translation, an empty String if the word has no translation
+	 *         or null if the word is unknown
+	 */
+	public String get(String word) {
+		CacheSegment segment = cacheSegment(word);
+		String translation;
+		synchronized (segment) {
+			translation = segment.get(word);
+		}
+		if (translation == null) {
+			translation = pendingTranslations.get(word);
+		}
+		if (translation != null) {
+			cacheHits.increment();
+			return translation;
+		}
+
+		translation = readTranslation(word);
+		if (translation != null) {
+			diskHits.increment();
+			synchronized (segment) {
+				segment.put(word, translation);
+			}
+		} else {
+			misses.increment();
+		}
+		return translation;
+	}
+
+	/**
+	 * Returns the translation of the word. Unknown words are looked up once
+	 * and their translation is appended to the log with the next batch. A
+	 * flush may move the word from the pending translations to the log after
+	 * it has been missed, so the log is checked again while the word is
+	 * locked in the pending translations; a flush indexes the words before
+	 * removing them from there. Without log file the word is looked up while
+	 * its cache segment is locked
+	 *
+	 * @param word
+	 *            the word
+	 * @param lookUp
+	 *            finds the translation of an unknown word, an empty String if
+	 *            there is none
+	 * @return the translation
+	 */
+	public String computeIfAbsent(String word, Function<String, String> lookUp) {
+		String translation = get(word);
+		if (translation != null) {
+			return translation;
+		}
+		if (logFile == null) {
+			CacheSegment segment = cacheSegment(word);
+			synchronized (segment) {
+				return segment.computeIfAbsent(word, lookUp);
+			}
+		}
+		boolean[] lookedUp = new boolean[1];
+		String[] logged = new String[1];
+		translation = pendingTranslations.computeIfAbsent(word, absentWord -> {
+			logged[0] = readTranslation(absentWord);
+			if (logged[0] != null) {
+				// flushed in the meantime, no new record
+				return null;
+			}
+			lookedUp[0] = true;
+			return lookUp.apply(absentWord);
+		});
+		if (logged[0] != null) {
+			diskHits.increment();
+			cache(word, logged[0]);
+			return logged[0];
+		}
+		if (lookedUp[0]) {
+			cache(word, translation);
+			addPending();
+		}
+		return translation;
+	}
+
+	/**
+	 * Sets the translation of the word, e.g. a corrected one. The record is
+	 * appended to the log with the next batch
+	 *
+	 * @param word
+	 *            the word
+	 * @param translation
+	 *            the translation or an empty String
+	 */
+	public void put(String word, String translation) {
+		if (logFile == null) {
+			cache(word, translation);
+		} else if (!translation.equals(get(word))) {
+			pendingTranslations.put(word, translation);
+			cache(word, translation);
+			addPending();
+		}
+	}
+
+	private void cache(String word, String translation) {
+		CacheSegment segment = cacheSegment(word);
+		synchronized (segment) {
+			segment.put(word, translation);
+		}
+	}
+
+	/**
+	 * Counts a pending translation and flushes if the batch is full
+	 */
+	private void addPending() {
+		if (pendingCount.incrementAndGet() >= FLUSH_BATCH_SIZE) {
+			try {
+				flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Appends the pending translations to the log and forces them to disk
+	 *
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public synchronized void flush() throws IOException {
+		if (logFile == null || pendingTranslations.isEmpty()) {
+			return;
+		}
+		List<String> words = new ArrayList<String>();
+		List<String> translations = new ArrayList<String>();
+		List<Long> offsets = new ArrayList<Long>();
+		ByteArrayOutputStream batch = new ByteArrayOutputStream(FLUSH_BATCH_SIZE * 32);
+		for (Map.Entry<String, String> translation : pendingTranslations.entrySet()) {
+			words.add(translation.getKey());
+			translations.add(translation.getValue());
+			offsets.add(logLength + batch.size());
+			writeRecord(batch, translation.getKey(), translation.getValue());
+		}
+
+		indexLock.writeLock().lock();
+		try {
+			write(logChannel, ByteBuffer.wrap(batch.toByteArray()), logLength);
+			logChannel.force(false);
+			logLength += batch.size();
+			logRecordCount += words.size();
+			for (int i = 0; i < words.size(); i++) {
+				indexRecord(words.get(i), offsets.get(i));
+			}
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+		// the words can be read from the log now
+		for (int i = 0; i < words.size(); i++) {
+			pendingTranslations.remove(words.get(i), translations.get(i));
+		}
+		pendingCount.addAndGet(-words.size());
+	}
+
+	/**
+	 * Rewrites the log with the latest record of every word. The new log
+	 * replaces the old one atomically, so a crash keeps either of them
+	 *
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public synchronized void compact() throws IOException {
+		if (logFile == null) {
+			return;
+		}
+		flush();
+
+		indexLock.writeLock().lock();
+		try {
+			File compactedFile = new File(logFile.getPath() + ".tmp");
+			int[] compactedHashes = new int[indexHashes.length];
+			long[] compactedOffsets = new long[indexOffsets.length];
+			long[] compactedLength = new long[1];
+			int[] compactedCount = new int[1];
+			try (FileChannel compactedChannel = FileChannel.open(compactedFile.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+				scanLog(logFile, (offset, source, translation) -> {
+					if (indexOffsets[findSlot(source, hash(source))] - 1 != offset) {
+						// superseded by a later record
+						return;
+					}
+					record.reset();
+					writeRecord(record, source, translation);
+					write(compactedChannel, ByteBuffer.wrap(record.toByteArray()), compactedLength[0]);
+					// the words are distinct, no need to compare them
+					int slot = hash(source) & (compactedHashes.length - 1);
+					while (compactedOffsets[slot] != 0) {
+						slot = (slot + 1) & (compactedHashes.length - 1);
+					}
+					compactedHashes[slot] = hash(source);
+					compactedOffsets[slot] = compactedLength[0] + 1;
+					compactedLength[0] += record.size();
+					compactedCount[0]++;
+				});
+				compactedChannel.force(false);
+			}
+			logChannel.close();
+			try {
+				Files.move(compactedFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(compactedFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			indexHashes = compactedHashes;
+			indexOffsets = compactedOffsets;
+			logLength = compactedLength[0];
+			logRecordCount = compactedCount[0];
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Flushes the pending translations and closes the log. Compacts the log
+	 * before if it contains too many superseded records
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (logFile == null) {
+			return;
+		}
+		flush();
+		if (logRecordCount > COMPACTION_FACTOR * Math.max(indexSize, 1)) {
+			compact();
+		}
+		logChannel.close();
+	}
+
+	/**
+	 * Reads the translation of the word from the log
+	 *
+	 * @return the translation or null if the word is not in the log
+	 */
+	private String readTranslation(String word) {
+		if (logFile == null) {
+			return null;
+		}
+		indexLock.readLock().lock();
+		try {
+			long offset = indexOffsets[findSlot(word, hash(word))];
+			if (offset == 0) {
+				return null;
+			}
+			return readRecord(offset - 1)[1];
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			indexLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Points the index entry of the word to the record at the offset
+	 */
+	private void indexRecord(String word, long offset) {
+		int hash = hash(word);
+		int slot = findSlot(word, hash);
+		if (indexOffsets[slot] == 0) {
+			indexSize++;
+		}
+		indexHashes[slot] = hash;
+		indexOffsets[slot] = offset + 1;
+		if (indexSize * 4 > indexHashes.length * 3) {
+			growIndex();
+		}
+	}
+
+	/**
+	 * Returns the slot of the word or the empty slot where it belongs. Reads
+	 * the records of words with the same hash for comparing
+	 */
+	private int findSlot(String word, int hash) {
+		int mask = indexHashes.length - 1;
+		int slot = hash & mask;
+		while (indexOffsets[slot] != 0) {
+			if (indexHashes[slot] == hash) {
+				try {
+					if (word.equals(readRecord(indexOffsets[slot] - 1)[0])) {
+						return slot;
+					}
+				} catch (IOException e) {
+					throw new IllegalStateException("Cannot read translation memory", e);
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void growIndex() {
+		int[] hashes = new int[indexHashes.length * 2];
+		long[] offsets = new long[indexOffsets.length * 2];
+		for (int i = 0; i < indexHashes.length; i++) {
+			if (indexOffsets[i] != 0) {
+				int slot = indexHashes[i] & (hashes.length - 1);
+				while (offsets[slot] != 0) {
+					slot = (slot + 1) & (hashes.length - 1);
+				}
+				hashes[slot] = indexHashes[i];
+				offsets[slot] = indexOffsets[i];
+			}
+		}
+		indexHashes = hashes;
+		indexOffsets = offsets;
+	}
+
+	private int hash(String word) {
+		int hash = word.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private CacheSegment cacheSegment(String word) {
+		return cacheSegments[hash(word) & (CACHE_SEGMENT_COUNT - 1)];
+	}
+
+	/**
+	 * Reads the record at the offset of the log
+	 *
+	 * @return source and translation
+	 */
+	private String[] readRecord(long offset) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(128);
+		while (true) {
+			int read = logChannel.read(buffer, offset + buffer.position());
+			byte[] bytes = buffer.array();
+			for (int i = 0; i < buffer.position(); i++) {
+				if (bytes[i] == '\n') {
+					return parseRecord(bytes, i);
+				}
+			}
+			if (read < 0) {
+				throw new IOException("Torn record in translation memory at byte " + offset);
+			}
+			if (!buffer.hasRemaining()) {
+				ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+				buffer.flip();
+				grown.put(buffer);
+				buffer = grown;
+			}
+		}
+	}
+
+	/**
+	 * Reads the complete records of the log sequentially
+	 *
+	 * @return the length of the log up to the end of the last complete record
+	 */
+	private long scanLog(File file, RecordVisitor visitor) throws IOException {
+		long position = 0;
+		long recordOffset = 0;
+		byte[] line = new byte[128];
+		int lineLength = 0;
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+			int b;
+			while ((b = input.read()) != -1) {
+				position++;
+				if (b != '\n') {
+					if (lineLength == line.length) {
+						byte[] grown = new byte[line.length * 2];
+						System.arraycopy(line, 0, grown, 0, lineLength);
+						line = grown;
+					}
+					line[lineLength++] = (byte) b;
+					continue;
+				}
+				String[] record = parseRecord(line, lineLength);
+				if (record != null) {
+					visitor.visit(recordOffset, record[0], record[1]);
+				}
+				lineLength = 0;
+				recordOffset = position;
+			}
+		}
+		return recordOffset;
+	}
+
+	/**
+	 * Parses an escaped record without its line break
+	 *
+	 * @return source and translation or null if the line is empty
+	 */
+	private static String[] parseRecord(byte[] line, int length) {
+		ByteArrayOutputStream field = new ByteArrayOutputStream(length);
+		String source = null;
+		for (int i = 0; i < length; i++) {
+			byte b = line[i];
+			if (b == ESCAPE && i + 1 < length) {
+				byte escaped = line[++i];
+				field.write(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+			} else if (b == SEPARATOR && source == null) {
+				source = new String(field.toByteArray(), StandardCharsets.UTF_8);
+				field.reset();
+			} else if (b != '\r') {
+				field.write(b);
+			}
+		}
+		String value = new String(field.toByteArray(), StandardCharsets.UTF_8);
+		if (source != null) {
+			return new String[] { source, value };
+		}
+		// record without translation
+		return value.isEmpty() ? null : new String[] { value, "" };
+	}
+
+	private static void writeRecord(ByteArrayOutputStream output, String word, String translation) {
+		writeEscaped(output, word);
+		output.write(SEPARATOR);
+		writeEscaped(output, translation);
+		output.write('\n');
+	}
+
+	private static void writeEscaped(ByteArrayOutputStream output, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		for (byte b : bytes) {
+			switch (b) {
+			case ESCAPE:
+			case SEPARATOR:
+				output.write(ESCAPE);
+				output.write(b);
+				break;
+			case '\n':
+				output.write(ESCAPE);
+				output.write('n');
+				break;
+			case '\r':
+				output.write(ESCAPE);
+				output.write('r');
+				break;
+			default:
+				output.write(b);
+			}
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * @return the number of words in the log and pending. A pending word which
+	 *         is in the log as well, e.g. while it is flushed, counts once.
+	 *         Without log file the number of cached words
+	 */
+	public int size() {
+		if (logFile == null) {
+			int size = 0;
+			for (CacheSegment segment : cacheSegments) {
+				synchronized (segment) {
+					size += segment.size();
+				}
+			}
+			return size;
+		}
+		indexLock.readLock().lock();
+		try {
+			int size = indexSize;
+			for (String word : pendingTranslations.keySet()) {
+				if (indexOffsets[findSlot(word, hash(word))] == 0) {
+					size++;
+				}
+			}
+			return size;
+		} finally {
+			indexLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of records in the log
+	 */
+	public int getLogRecordCount() {
+		return logRecordCount;
+	}
+
+	/**
+	 * @return the number of translations found in the cache
+	 */
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * @return the number of translations read from the log
+	 */
+	public long getDiskHits() {
+		return diskHits.sum();
+	}
+
+	/**
+	 * @return the number of unknown words asked for
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of translations evicted from the cache
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Receives the records of the log
+	 */
+	private interface RecordVisitor {
+		void visit(long offset, String source, String translation) throws IOException;
+	}
+
+	/**
+	 * Least recently used translations of a part of the words
+	 */
+	private class CacheSegment extends LinkedHashMap<String, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		CacheSegment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
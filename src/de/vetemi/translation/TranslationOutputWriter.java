@@ -0,0 +1,105 @@
+package de.vetemi.translation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+/**
+ * Writes translated words to the output file and words without translation to
+ * the not translated file. Existing files are replaced when opening the
+ * writer, unless it appends to them.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationOutputWriter implements Closeable {
+
+	/**
+	 * Constant for separating values in the output
+	 */
+	private final String SEPARATOR = ";";
+
+	/**
+	 * Writer for the translated words
+	 */
+	private BufferedWriter bWriterOutput;
+
+	/**
+	 * Writer for the words which were not able to translate
+	 */
+	private BufferedWriter bWriterNotTranslated;
+
+	public TranslationOutputWriter(File wordOutputFile, File wordOutputNotTranslatedFile) throws IOException {
+		this(wordOutputFile, wordOutputNotTranslatedFile, false);
+	}
+
+	/**
+	 * @param wordOutputFile
+	 *            receives the translated words
+	 * @param wordOutputNotTranslatedFile
+	 *            receives the words without translation
+	 * @param append
+	 *            true to append to existing files instead of replacing them
+	 * @throws IOException
+	 *             if the files cannot be opened
+	 */
+	public TranslationOutputWriter(File wordOutputFile, File wordOutputNotTranslatedFile, boolean append)
+			throws IOException {
+		if (!append) {
+			if (wordOutputFile.exists()) {
+				wordOutputFile.delete();
+			}
+			wordOutputFile.createNewFile();
+
+			if (wordOutputNotTranslatedFile.exists()) {
+				wordOutputNotTranslatedFile.delete();
+			}
+			wordOutputNotTranslatedFile.createNewFile();
+		}
+
+		bWriterOutput = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(wordOutputFile, append), "UTF-8"));
+		bWriterNotTranslated = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(wordOutputNotTranslatedFile, append), "UTF-8"));
+	}
+
+	/**
+	 * Writes the word with its translation into the matching file
+	 *
+	 * @param german
+	 *            the source word
+	 * @param english
+	 *            the translation or an empty String if nothing found
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(String german, String english) throws IOException {
+		BufferedWriter bWriter = english.isEmpty() ? bWriterNotTranslated : bWriterOutput;
+		bWriter.write(german);
+		bWriter.write(SEPARATOR);
+		bWriter.write(english);
+		bWriter.newLine();
+	}
+
+	/**
+	 * Flushes both files, so that the written words are visible to readers
+	 *
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void flush() throws IOException {
+		bWriterOutput.flush();
+		bWriterNotTranslated.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			bWriterNotTranslated.close();
+		} finally {
+			bWriterOutput.close();
+		}
+	}
+}
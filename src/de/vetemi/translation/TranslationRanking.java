@@ -0,0 +1,81 @@
+package de.vetemi.translation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ranks the candidate translations of a German word. Counts every value token
+ * of the entries whose key contains the word, the most frequent token is the
+ * best translation. Assumption is that highest count is best translation.
+ * Tokens with the same count keep the order of their first occurrence in the
+ * translation file, so the ranking does not depend on hashing.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationRanking {
+
+	/**
+	 * Constant for the maximum of translations to found per word
+	 */
+	public static final int MAX_FIND_TRANS = 40;
+
+	/**
+	 * Number of ranked translations which are kept per word
+	 */
+	public static final int TOP_TRANSLATIONS = 4;
+
+	private TranslationRanking() {
+	}
+
+	/**
+	 * Ranks the value tokens of the entries
+	 *
+	 * @param valueTokens
+	 *            value tokens per entry in the order of the translation file
+	 * @param limit
+	 *            maximum number of returned translations
+	 * @return the distinct tokens, most frequent first, empty if there are no
+	 *         tokens
+	 */
+	public static String[] rank(List<String[]> valueTokens, int limit) {
+		// distinct tokens in the order of their first occurrence
+		String[] tokens = new String[MAX_FIND_TRANS + 8];
+		int[] counts = new int[tokens.length];
+		int tokenCount = 0;
+
+		// iterate through the entries until enough translations are found
+		for (String[] translation : valueTokens) {
+			if (tokenCount > MAX_FIND_TRANS) {
+				break;
+			}
+			for (String valueWord : translation) {
+				int index = 0;
+				while (index < tokenCount && !tokens[index].equals(valueWord)) {
+					index++;
+				}
+				if (index == tokenCount) {
+					if (tokenCount == tokens.length) {
+						tokens = Arrays.copyOf(tokens, tokenCount * 2);
+						counts = Arrays.copyOf(counts, tokenCount * 2);
+					}
+					tokens[tokenCount++] = valueWord;
+				}
+				counts[index]++;
+			}
+		}
+
+		// selection of the most frequent tokens, the first one wins ties
+		String[] ranked = new String[Math.min(limit, tokenCount)];
+		for (int rank = 0; rank < ranked.length; rank++) {
+			int best = -1;
+			for (int i = 0; i < tokenCount; i++) {
+				if (counts[i] > 0 && (best < 0 || counts[i] > counts[best])) {
+					best = i;
+				}
+			}
+			ranked[rank] = tokens[best];
+			counts[best] = 0;
+		}
+		return ranked;
+	}
+}
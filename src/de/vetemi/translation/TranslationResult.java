@@ -0,0 +1,80 @@
+package de.vetemi.translation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Translation of a source word: the total translation in the form of the
+ * source word and the translation of every part
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationResult {
+
+	private final String wordSource;
+
+	private final String translation;
+
+	private final boolean translatable;
+
+	private final List<PartTranslation> parts;
+
+	/**
+	 * @param wordSource
+	 *            the source word
+	 * @param translation
+	 *            the total translation or an empty String if no part has been
+	 *            translated
+	 * @param translatable
+	 *            false if the source word needs no translation, e.g. because
+	 *            it is English
+	 * @param parts
+	 *            the translation of every part
+	 */
+	public TranslationResult(String wordSource, String translation, boolean translatable,
+			List<PartTranslation> parts) {
+		this.wordSource = wordSource;
+		this.translation = translation;
+		this.translatable = translatable;
+		this.parts = Collections.unmodifiableList(parts);
+	}
+
+	public String getWordSource() {
+		return wordSource;
+	}
+
+	/**
+	 * @return the total translation or an empty String if no part has been
+	 *         translated
+	 */
+	public String getTranslation() {
+		return translation;
+	}
+
+	/**
+	 * @return false if the source word needs no translation, e.g. because it
+	 *         is English or a number
+	 */
+	public boolean isTranslatable() {
+		return translatable;
+	}
+
+	/**
+	 * @return true if at least one part has been translated
+	 */
+	public boolean hasTranslation() {
+		return !translation.isEmpty();
+	}
+
+	/**
+	 * @return the translation of every part in the order of the source word
+	 */
+	public List<PartTranslation> getParts() {
+		return parts;
+	}
+
+	@Override
+	public String toString() {
+		return wordSource + ";" + translation + " " + parts;
+	}
+}
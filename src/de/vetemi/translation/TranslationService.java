@@ -0,0 +1,353 @@
+package de.vetemi.translation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import de.vetemi.wordprocessing.DictCodeWordProcessor;
+import de.vetemi.wordprocessing.IWordProcessor;
+
+/**
+ * In-process translation of source words, e.g. for build tools which must not
+ * go through the word source and output files. The service splits a source
+ * word into its parts, translates every part with the translator and converts
+ * the translation into the form of the source word, like the translation
+ * workflow does.
+ * <p>
+ * The dictionary is only read, so one loaded dictionary can be shared by
+ * several services and all of them can be called by several threads at the
+ * same time.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationService {
+
+	private final AbstractTranslator translator;
+
+	private final IWordProcessor wordProcessor;
+
+	private final ITranslationDictionary translationDictionary;
+
+	/**
+	 * Creates a service with a dictionary translator and its own memory which
+	 * is kept in the heap
+	 *
+	 * @param wordProcessor
+	 *            the word processor
+	 * @param translationDictionary
+	 *            the loaded dictionary, may be shared with other services
+	 */
+	public TranslationService(IWordProcessor wordProcessor, ITranslationDictionary translationDictionary) {
+		this(createTranslator(wordProcessor, translationDictionary), wordProcessor, translationDictionary);
+	}
+
+	/**
+	 * @param translator
+	 *            the translator, must translate with the given dictionary
+	 * @param wordProcessor
+	 *            the word processor of the translator
+	 * @param translationDictionary
+	 *            the loaded dictionary, may be shared with other services
+	 */
+	public TranslationService(AbstractTranslator translator, IWordProcessor wordProcessor,
+			ITranslationDictionary translationDictionary) {
+		this.translator = translator;
+		this.wordProcessor = wordProcessor;
+		this.translationDictionary = translationDictionary;
+	}
+
+	private static AbstractTranslator createTranslator(IWordProcessor wordProcessor,
+			ITranslationDictionary translationDictionary) {
+		DictTranslator translator = new DictTranslator(wordProcessor);
+		translator.setTranslationDictionary(translationDictionary);
+		return translator;
+	}
+
+	/**
+	 * Loads the dictionary of the resource directory. The compiled dictionary
+	 * is mapped if it is up to date, otherwise the translation file is parsed
+	 * and compiled. The memory files are not touched
+	 *
+	 * @param resourceDirectory
+	 *            directory which contains the translation file
+	 * @return the service
+	 */
+	public static TranslationService load(File resourceDirectory) {
+		DictCodeWordProcessor wordProcessor = new DictCodeWordProcessor();
+		TranslationIO translationIO = new TranslationIO(wordProcessor, resourceDirectory);
+		translationIO.importTranslationMaps();
+		return new TranslationService(wordProcessor, translationIO.getTranslationDictionary());
+	}
+
+	/**
+	 * Translates a source word
+	 *
+	 * @param wordSource
+	 *            the word to translate
+	 * @return the total translation and the translation of every part. Words
+	 *         which need no translation are not translatable and have no
+	 *         translated part
+	 */
+	public TranslationResult translate(String wordSource) {
+		List<String> wordParts = wordProcessor.getWordParts(wordSource);
+		List<PartTranslation> parts = new ArrayList<PartTranslation>(wordParts.size());
+		if (!isTranslatable(wordParts)) {
+			for (String wordPart : wordParts) {
+				parts.add(new PartTranslation(wordPart, null, TranslationSource.NONE));
+			}
+			return new TranslationResult(wordSource, "", false, parts);
+		}
+
+		boolean hasTranslation = false;
+		List<String> translatedWordParts = new ArrayList<String>(wordParts.size());
+		for (String wordPart : wordParts) {
+			PartTranslation part = translator.translatePart(wordPart);
+			parts.add(part);
+			if (part.hasTranslation()) {
+				translatedWordParts.add(part.getTranslation());
+				hasTranslation = true;
+			} else {
+				// nothing found
+				translatedWordParts.add(wordPart);
+			}
+		}
+		// total translated word. Empty if no translation was found
+		String translation = hasTranslation
+				? wordProcessor.convertWordToOrigin(translatedWordParts, wordParts, wordSource)
+				: "";
+		return new TranslationResult(wordSource, translation, true, parts);
+	}
+
+	/**
+	 * Translates source words. Every distinct word is translated once
+	 *
+	 * @param wordSources
+	 *            the words to translate
+	 * @return the translation per word in the iteration order of the words
+	 */
+	public List<TranslationResult> translateAll(Collection<String> wordSources) {
+		Map<String, TranslationResult> translations = new LinkedHashMap<String, TranslationResult>();
+		List<TranslationResult> results = new ArrayList<TranslationResult>(wordSources.size());
+		for (String wordSource : wordSources) {
+			results.add(translations.computeIfAbsent(wordSource, this::translate));
+		}
+		return results;
+	}
+
+	/**
+	 * Translates source words as a stream on the common fork join pool, see
+	 * {@link #translateStream(Iterable, Executor)}
+	 *
+	 * @param wordSources
+	 *            the words to translate
+	 * @return publisher of the translations
+	 */
+	public Flow.Publisher<TranslationResult> translateStream(Iterable<String> wordSources) {
+		return translateStream(wordSources, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Translates source words as a stream. Every subscriber iterates the words
+	 * itself and a word is only translated when the subscriber has requested
+	 * it, so a lazy source, e.g. the words of a file, is never read further
+	 * than the subscriber consumes
+	 *
+	 * @param wordSources
+	 *            the words to translate
+	 * @param executor
+	 *            runs the translation and signals the subscribers
+	 * @return publisher of the translations in the order of the words
+	 */
+	public Flow.Publisher<TranslationResult> translateStream(Iterable<String> wordSources, Executor executor) {
+		return subscriber -> {
+			TranslationSubscription subscription = new TranslationSubscription(wordSources.iterator(), subscriber,
+					executor);
+			subscriber.onSubscribe(subscription);
+		};
+	}
+
+	/**
+	 * Takes word source and splits into word parts and checks for every word
+	 * part if it is translatable. The word is translatable if its last part is
+	 * neither an English word nor a number
+	 *
+	 * @param wordSource
+	 *            the source word
+	 * @return true if translatable and false if not
+	 */
+	public boolean isTranslatable(String wordSource) {
+		// this returns at least the wordSource so that List has at least one
+		// element
+		return isTranslatable(wordProcessor.getWordParts(wordSource));
+	}
+
+	private boolean isTranslatable(List<String> wordParts) {
+		boolean isTranslatable = false;
+		for (String word : wordParts) {
+			isTranslatable = checkWordIsTranslatable(word);
+		}
+		return isTranslatable;
+	}
+
+	/**
+	 * The actual validation functionality. Takes word and tries to match with
+	 * the English words of the dictionary (infinitives included) in order to
+	 * find out if it is a English word. Also checks if word is digit.
+	 *
+	 * @param word
+	 * @return true if no English word or Digit, otherwise false
+	 */
+	private boolean checkWordIsTranslatable(String word) {
+		return !isNumber(word) && !translationDictionary.containsEnglishWord(word);
+	}
+
+	/**
+	 * Checks if the word consists of the digits 0 to 9 only
+	 */
+	private boolean isNumber(String word) {
+		if (word.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public ITranslationDictionary getTranslationDictionary() {
+		return translationDictionary;
+	}
+
+	public TranslationStatistics getStatistics() {
+		return translator.getStatistics();
+	}
+
+	/**
+	 * Subscription of a stream of translations. Translates as many words as
+	 * requested on the executor. At most one task runs at a time, so the
+	 * subscriber is signalled by one thread after another, and a request of
+	 * the subscriber while it is signalled only adds to the demand or, if
+	 * invalid, records the error for the task
+	 */
+	private class TranslationSubscription implements Flow.Subscription {
+
+		private final Iterator<String> wordSources;
+
+		private final Flow.Subscriber<? super TranslationResult> subscriber;
+
+		private final Executor executor;
+
+		/**
+		 * Requested but not yet signalled translations
+		 */
+		private final AtomicLong demand = new AtomicLong();
+
+		/**
+		 * Number of requests since the running task has started, 0 if no task
+		 * runs
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+
+		/**
+		 * Set when cancelled or completed, nothing is signalled afterwards
+		 */
+		private final AtomicBoolean done = new AtomicBoolean();
+
+		/**
+		 * Error of an invalid request, signalled by the task
+		 */
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		private TranslationSubscription(Iterator<String> wordSources,
+				Flow.Subscriber<? super TranslationResult> subscriber, Executor executor) {
+			this.wordSources = wordSources;
+			this.subscriber = subscriber;
+			this.executor = executor;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				failure.compareAndSet(null, new IllegalArgumentException("Requested " + n + " translations"));
+			} else {
+				demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			}
+			if (pending.getAndIncrement() == 0) {
+				executor.execute(this::signal);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			done.set(true);
+		}
+
+		/**
+		 * Translates and signals the requested words until the demand is met
+		 * and no further request has come in. Signals the completion as soon
+		 * as all words have been signalled
+		 */
+		private void signal() {
+			int requests = 1;
+			while (true) {
+				long requested = demand.get();
+				long signalled = 0;
+				while (true) {
+					if (done.get()) {
+						return;
+					}
+					if (failure.get() != null) {
+						fail(failure.get());
+						return;
+					}
+					// completes once all words are signalled, without demand
+					if (!wordSources.hasNext()) {
+						if (done.compareAndSet(false, true)) {
+							subscriber.onComplete();
+						}
+						return;
+					}
+					if (signalled == requested) {
+						break;
+					}
+					TranslationResult result;
+					try {
+						result = translate(wordSources.next());
+					} catch (RuntimeException e) {
+						fail(e);
+						return;
+					}
+					subscriber.onNext(result);
+					signalled++;
+				}
+				if (requested != Long.MAX_VALUE) {
+					demand.addAndGet(-signalled);
+				}
+				requests = pending.addAndGet(-requests);
+				if (requests == 0) {
+					return;
+				}
+			}
+		}
+
+		private void fail(Throwable failure) {
+			if (done.compareAndSet(false, true)) {
+				subscriber.onError(failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package de.vetemi.translation;
+
+/**
+ * Tells where the translation of a word part has been found
+ *
+ * @author Valmir Etemi
+ */
+public enum TranslationSource {
+
+	/**
+	 * The whole part has been translated by an earlier lookup and was found in
+	 * the translation memory
+	 */
+	MEMORY,
+
+	/**
+	 * The whole part has been looked up in the dictionary
+	 */
+	DICTIONARY,
+
+	/**
+	 * The part has been split into key tokens of the dictionary, e.g.
+	 * "Dampfschiff" -> "Dampf", "Schiff"
+	 */
+	DECOMPOUNDED,
+
+	/**
+	 * The part has been split by the fallback word splitter, parts without
+	 * translation are "N/A"
+	 */
+	WORD_SPLITTER,
+
+	/**
+	 * No translation found or the part has not been translated at all, e.g.
+	 * because it is too short or an English word
+	 */
+	NONE
+}
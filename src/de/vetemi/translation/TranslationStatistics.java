@@ -0,0 +1,99 @@
+package de.vetemi.translation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how the words given to a translator have been translated. Can be
+ * updated by several translating threads.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationStatistics {
+
+	/**
+	 * Words which have been translated as a whole
+	 */
+	private final LongAdder wholeWords = new LongAdder();
+
+	/**
+	 * Dictionary lookups whose translation comes from another spelling of the
+	 * word only, e.g. "größe" for "groesse". These are found by folding,
+	 * formerly by retrying with the cleaned word
+	 */
+	private final LongAdder umlautSpellingLookups = new LongAdder();
+
+	/**
+	 * Words which have been split into dictionary key tokens
+	 */
+	private final LongAdder decompoundedWords = new LongAdder();
+
+	/**
+	 * Words which have been split by the fallback word splitter
+	 */
+	private final LongAdder splitterFallbacks = new LongAdder();
+
+	/**
+	 * Parts of split words without translation, which end as "N/A"
+	 */
+	private final LongAdder missingParts = new LongAdder();
+
+	/**
+	 * Words without any translation
+	 */
+	private final LongAdder untranslatedWords = new LongAdder();
+
+	void addWholeWord() {
+		wholeWords.increment();
+	}
+
+	void addUmlautSpellingLookup() {
+		umlautSpellingLookups.increment();
+	}
+
+	void addDecompoundedWord() {
+		decompoundedWords.increment();
+	}
+
+	void addSplitterFallback() {
+		splitterFallbacks.increment();
+	}
+
+	void addMissingParts(int count) {
+		missingParts.add(count);
+	}
+
+	void addUntranslatedWord() {
+		untranslatedWords.increment();
+	}
+
+	public long getWholeWords() {
+		return wholeWords.sum();
+	}
+
+	public long getUmlautSpellingLookups() {
+		return umlautSpellingLookups.sum();
+	}
+
+	public long getDecompoundedWords() {
+		return decompoundedWords.sum();
+	}
+
+	public long getSplitterFallbacks() {
+		return splitterFallbacks.sum();
+	}
+
+	public long getMissingParts() {
+		return missingParts.sum();
+	}
+
+	public long getUntranslatedWords() {
+		return untranslatedWords.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "Whole words:" + getWholeWords() + " Umlaut spelling lookups:" + getUmlautSpellingLookups()
+				+ " Decompounded words:" + getDecompoundedWords() + " Splitter fallbacks:" + getSplitterFallbacks()
+				+ " N/A parts:" + getMissingParts() + " Untranslated words:" + getUntranslatedWords();
+	}
+}
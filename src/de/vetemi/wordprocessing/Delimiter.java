@@ -6,6 +6,6 @@ package de.vetemi.wordprocessing;
  */
 public enum Delimiter {
 
-	CAMELTITLECASE, UNDERSCORE, HYPHEN, NODELIMITER;
+	CAMELTITLECASE, UNDERSCORE, HYPHEN, DOT, NODELIMITER;
 
 }
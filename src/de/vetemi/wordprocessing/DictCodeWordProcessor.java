@@ -1,8 +1,7 @@
 package de.vetemi.wordprocessing;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,145 +13,210 @@ import java.util.Map;
  */
 public class DictCodeWordProcessor implements IWordProcessor {
 
-	private final String CAMELTITELCASE_DELIMITER = "(?<!(^|[A-Z]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])";
 	private final String HYPHEN_DELIMITER = "-";
 	private final String UNDERSCORE_DELIMITER = "_";
+	private final String DOT_DELIMITER = ".";
 
 	/**
-	 * Contains all pre defined delimiters
+	 * Tokenizer per thread, so that the word processor can be shared by
+	 * translating threads
 	 */
-	private List<String> delimiterList;
-	
-	
+	private final ThreadLocal<WordTokenizer> tokenizer = ThreadLocal.withInitial(WordTokenizer::new);
+
 	/**
-	 * Contains the cleaning regex rules
+	 * Translation cleaner per thread
 	 */
-	private List<String> removeRegexRules;
-	
+	private final ThreadLocal<TranslationCleaner> cleaner = ThreadLocal.withInitial(TranslationCleaner::new);
+
 	/**
-	 * Contains the umlauts regex rules for German
+	 * Contains the umlaut rules for German in the order they are tried
 	 */
-	private Map<String, String> germanCharRegexRules;
+	private Map<String, String> germanCharRules;
 
 	public DictCodeWordProcessor() {
 		super();
-		configureRemoveRegexRules();
-		configureGermanCharRegexRules();
-		configureDelimiters();
+		configureGermanCharRules();
 	}
 
 	public List<String> getWordParts(String wordSource) {
-		
+		WordTokenizer wordTokenizer = tokenizer.get();
+		wordTokenizer.tokenize(wordSource);
+
 		// final list with all parts
-		ArrayList<String> wordParts = new ArrayList<String>();
-		ArrayList<String> tempList;
-		
-		// Check if word can be split by underscore
-		if (wordSource.contains(UNDERSCORE_DELIMITER)) {
-			wordParts = new ArrayList<String>(Arrays.asList(wordSource.split(UNDERSCORE_DELIMITER)));
-		}
-		// Check if word can be split by hyphen
-		if (wordSource.contains(HYPHEN_DELIMITER)) {
-			// Check if word is already split by underscore
-			if (!wordParts.isEmpty()) {
-				tempList = new ArrayList<String>();
-				for (String word : wordParts) {
-					// Take already split words and split with hyphen
-					tempList.addAll(new ArrayList<String>(Arrays.asList(word.split(HYPHEN_DELIMITER))));
-				}
-				// Contains all underscore and hyphen split words
-				wordParts = tempList;
+		List<String> wordParts = new ArrayList<String>(wordTokenizer.getPartCount());
+		for (int i = 0; i < wordTokenizer.getPartCount(); i++) {
+			wordParts.add(wordSource.substring(wordTokenizer.getPartStart(i), wordTokenizer.getPartEnd(i)));
+		}
+		// contains at least the word source, e.g. if it is only delimiters
+		if (wordParts.isEmpty()) {
+			wordParts.add(wordSource);
+		}
+		return wordParts;
+	}
+
+	public String convertWordToOrigin(List<String> target, List<String> originWordParts, String originWord) {
+		// get parts and delimiter of origin
+		WordTokenizer wordTokenizer = tokenizer.get();
+		Delimiter delimiter = wordTokenizer.tokenize(originWord);
+
+		StringBuilder convertedWord = new StringBuilder(originWord.length() * 2);
+		if (wordTokenizer.getPartCount() == target.size()) {
+			// keep everything between the parts as in the origin, e.g.
+			// "_member-name" -> "_mitglied-name"
+			int end = 0;
+			for (int i = 0; i < target.size(); i++) {
+				convertedWord.append(originWord, end, wordTokenizer.getPartStart(i));
+				appendConvertedPart(convertedWord, target.get(i), originWordParts.get(i));
+				end = wordTokenizer.getPartEnd(i);
 			}
-			// Contains only hypen split words
-			wordParts.addAll(new ArrayList<String>(Arrays.asList(wordSource.split(HYPHEN_DELIMITER))));
-		}
-		// Check if words already split by hypen and/or underscore
-		// same procedure as hyphen
-		if (!wordParts.isEmpty()) {
-			tempList = new ArrayList<String>();
-			for (String word : wordParts) {
-				tempList.addAll(new ArrayList<String>(Arrays.asList(word.split(CAMELTITELCASE_DELIMITER))));
+			convertedWord.append(originWord, end, originWord.length());
+		} else {
+			// parts do not belong to the origin, join them with its delimiter
+			for (int i = 0; i < target.size(); i++) {
+				if (i > 0) {
+					convertedWord.append(getDelimiterString(delimiter));
+				}
+				appendConvertedPart(convertedWord, target.get(i), originWordParts.get(i));
 			}
-			wordParts = tempList;
+		}
+		return convertedWord.toString();
+	}
+
+	/**
+	 * Does the actual conversion of a target word part according to the case
+	 * of the origin word part: upper case if the origin is upper case (e.g.
+	 * SCREAMING_SNAKE), title case if the origin starts with an upper case
+	 * letter, otherwise unchanged. Empty origin parts are dropped
+	 * 
+	 * @param convertedWord
+	 *            the converted word to append to
+	 * @param target
+	 *            translated word part to convert
+	 * @param origin
+	 *            the origin word part
+	 */
+	private void appendConvertedPart(StringBuilder convertedWord, String target, String origin) {
+		if (origin.isEmpty() || target.isEmpty()) {
+			return;
+		}
+		if (origin.length() > 1 && isUpperCase(origin)) {
+			convertedWord.append(target.toUpperCase());
+		} else if (Character.isUpperCase(origin.charAt(0))) {
+			convertedWord.append(Character.toUpperCase(target.charAt(0))).append(target, 1, target.length());
 		} else {
-			wordParts.addAll(new ArrayList<String>(Arrays.asList(wordSource.split(CAMELTITELCASE_DELIMITER))));
+			convertedWord.append(target);
 		}
-		return wordParts;
 	}
 
-	public String convertWordToOrigin(List<String> target, List<String> originWordParts, String originWord) {
-		// get delimiter of origin
-		Delimiter delimiter = getDelimiter(originWord);
+	/**
+	 * Checks if all letters of the word are upper case
+	 */
+	private boolean isUpperCase(String word) {
+		for (int i = 0; i < word.length(); i++) {
+			if (Character.isLowerCase(word.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the String which is put between the parts for the given
+	 * delimiter
+	 */
+	private String getDelimiterString(Delimiter delimiter) {
 		switch (delimiter) {
-		case CAMELTITLECASE:
-			return convertWordWithDelimiter(target, originWordParts, CAMELTITELCASE_DELIMITER);
 		case HYPHEN:
-			return convertWordWithDelimiter(target, originWordParts, HYPHEN_DELIMITER);
+			return HYPHEN_DELIMITER;
 		case UNDERSCORE:
-			return convertWordWithDelimiter(target, originWordParts, UNDERSCORE_DELIMITER);
+			return UNDERSCORE_DELIMITER;
+		case DOT:
+			return DOT_DELIMITER;
+		case CAMELTITLECASE:
 		case NODELIMITER:
 		default:
-			return convertWordWithDelimiter(target, originWordParts, "");
+			return "";
 		}
 	}
 
-	/**
-	 * Does the actual conversion of the target word parts according to the
-	 * given delimiter and the origin word parts
-	 * 
-	 * @param target
-	 *            translated word parts to convert
-	 * @param origin
-	 *            the origin word parts
-	 * @param delimiter
-	 *            Delimiter which can be hyphen, underscore or TitleCamelCase
-	 * @return the converted word
-	 */
-	private String convertWordWithDelimiter(List<String> target, List<String> origin, String delimiter) {
-		// Here comes the preparation of the translated word according to it's
-		// origin
-		String totalConvertedWord = "";
-		for (int i = 0; i < target.size(); i++) {
-
-			char[] originChars = origin.get(i).toCharArray();
-			if (originChars.length > 0) {
-				if (Character.isUpperCase(originChars[0])) {
-					if (target.get(i).toCharArray().length > 1) {
-						totalConvertedWord += target.get(i).substring(0, 1).toUpperCase() + target.get(i).substring(1);
-					} else {
-						totalConvertedWord += target.get(i).substring(0, 1).toUpperCase();
-					}
-				} else {
-					totalConvertedWord += target.get(i);
+	@Override
+	public String cleanWordToTranslate(String wordToClean) {
+		// Clean german Umlauts: ae -> ä; ue -> ü; oe -> ö for dict
+		// dictionary. The rules are tried at every position in one pass
+		StringBuilder cleanedWord = new StringBuilder(wordToClean.length());
+		int i = 0;
+		while (i < wordToClean.length()) {
+			String replacement = null;
+			for (Map.Entry<String, String> entry : germanCharRules.entrySet()) {
+				if (wordToClean.startsWith(entry.getKey(), i)) {
+					replacement = entry.getValue();
+					i += entry.getKey().length();
+					break;
 				}
 			}
-
-			if ((delimiter == HYPHEN_DELIMITER || delimiter == UNDERSCORE_DELIMITER) && i < (target.size() - 1)) {
-				totalConvertedWord += delimiter;
+			if (replacement == null) {
+				cleanedWord.append(wordToClean.charAt(i++));
+			} else {
+				cleanedWord.append(replacement);
 			}
 		}
-		return totalConvertedWord;
+		return cleanedWord.toString().trim();
 	}
 
 	@Override
-	public String cleanWordToTranslate(String wordToClean) {
-		// Clean german Umlauts: ae -> �; ue -> �; oe -> � for dict
-		// dictionary
-		String cleanedWord = wordToClean;
+	public String foldWord(String word) {
+		// find the first character which is changed by folding
+		int i = 0;
+		while (i < word.length()) {
+			char c = word.charAt(i);
+			if (Character.toLowerCase(c) != c || foldUmlaut(c) != null) {
+				break;
+			}
+			i++;
+		}
+		if (i == word.length()) {
+			return word;
+		}
 
-		for (Map.Entry<String, String> entry : germanCharRegexRules.entrySet()) {
-			cleanedWord = cleanedWord.replaceAll(entry.getKey(), entry.getValue());
+		StringBuilder foldedWord = new StringBuilder(word.length() + 4);
+		foldedWord.append(word, 0, i);
+		for (; i < word.length(); i++) {
+			char c = Character.toLowerCase(word.charAt(i));
+			String folded = foldUmlaut(c);
+			if (folded == null) {
+				foldedWord.append(c);
+			} else {
+				foldedWord.append(folded);
+			}
+		}
+		return foldedWord.toString();
+	}
+
+	/**
+	 * Returns the ASCII spelling of a lower case umlaut or sharp s
+	 * 
+	 * @param c
+	 *            lower case character
+	 * @return the ASCII spelling or null if c is no umlaut
+	 */
+	private String foldUmlaut(char c) {
+		switch (c) {
+		case 'ä':
+			return "ae";
+		case 'ö':
+			return "oe";
+		case 'ü':
+			return "ue";
+		case 'ß':
+			return "ss";
+		default:
+			return null;
 		}
-		return cleanedWord.trim();
 	}
 
 	@Override
 	public String cleanTranslation(String sourceWord) {
-		String wordToClean = sourceWord.toLowerCase();
-		for (String rule : removeRegexRules) {
-			wordToClean = wordToClean.replaceAll(rule, "");
-		}
-		return wordToClean.trim();
+		return cleaner.get().clean(sourceWord);
 	}
 
 	public String[] getHyphenDelimited(String wordSource) {
@@ -164,11 +228,15 @@ public class DictCodeWordProcessor implements IWordProcessor {
 	}
 
 	public String[] getCamelTitelCaseDelimited(String wordSource) {
-		String[] wordParts = wordSource.split(CAMELTITELCASE_DELIMITER);
-		if (wordParts.length > 1) {
-			return wordParts;
+		WordTokenizer wordTokenizer = tokenizer.get();
+		if (wordTokenizer.tokenize(wordSource) != Delimiter.CAMELTITLECASE || wordTokenizer.getPartCount() < 2) {
+			return null;
 		}
-		return null;
+		String[] wordParts = new String[wordTokenizer.getPartCount()];
+		for (int i = 0; i < wordParts.length; i++) {
+			wordParts[i] = wordSource.substring(wordTokenizer.getPartStart(i), wordTokenizer.getPartEnd(i));
+		}
+		return wordParts;
 	}
 
 	public String[] getUnderscoreDelimited(String wordSource) {
@@ -180,63 +248,20 @@ public class DictCodeWordProcessor implements IWordProcessor {
 	}
 
 	/**
-	 * Determines the delimiter of a string. Returns Delimiter.NONDELIMITER if
-	 * single word
-	 * 
-	 * @param origin
-	 * @return
-	 */
-	private Delimiter getDelimiter(String origin) {
-		if (origin.contains(HYPHEN_DELIMITER)) {
-			return Delimiter.HYPHEN;
-		} else if (origin.contains(UNDERSCORE_DELIMITER)) {
-			return Delimiter.UNDERSCORE;
-		} else if (origin.split(CAMELTITELCASE_DELIMITER).length > 1) {
-			return Delimiter.CAMELTITLECASE;
-		}
-		return Delimiter.NODELIMITER;
-	}
-
-	/**
-	 * Configures the regex rules for cleaning words
-	 */
-	private void configureRemoveRegexRules() {
-		removeRegexRules = new ArrayList<String>();
-		removeRegexRules.add("\\[.*\\]");
-		removeRegexRules.add("\\(.*\\)");
-		removeRegexRules.add("\\<.*\\>");
-		removeRegexRules.add("\\{.*\\}");
-		removeRegexRules.add("/");
-		removeRegexRules.add("sth.");
-		removeRegexRules.add("sb.");
-		removeRegexRules.add("the ");
-	}
-
-	/**
-	 * Configures the Regex rules for cleaning German words
-	 */
-	private void configureGermanCharRegexRules() {
-		germanCharRegexRules = new HashMap<String, String>();
-		germanCharRegexRules.put("ae", "ä");
-		germanCharRegexRules.put("ue", "ü");
-		germanCharRegexRules.put("oe", "ö");
-		germanCharRegexRules.put("Ae", "Ä");
-		germanCharRegexRules.put("Ue", "Ü");
-		germanCharRegexRules.put("Oe", "Ö");
-		germanCharRegexRules.put("AE", "Ä");
-		germanCharRegexRules.put("UE", "Ü");
-		germanCharRegexRules.put("OE", "Ö");
-		germanCharRegexRules.put("SS", "ß");
-		germanCharRegexRules.put("ss", "ß");
-	}
-
-	/**
-	 * Configure the current delimiters CamelTitelCase, Hyphen, Underscore
+	 * Configures the rules for cleaning German words
 	 */
-	private void configureDelimiters() {
-		delimiterList = new ArrayList<String>();
-		delimiterList.add(CAMELTITELCASE_DELIMITER);
-		delimiterList.add(HYPHEN_DELIMITER);
-		delimiterList.add(UNDERSCORE_DELIMITER);
+	private void configureGermanCharRules() {
+		germanCharRules = new LinkedHashMap<String, String>();
+		germanCharRules.put("ae", "ä");
+		germanCharRules.put("ue", "ü");
+		germanCharRules.put("oe", "ö");
+		germanCharRules.put("Ae", "Ä");
+		germanCharRules.put("Ue", "Ü");
+		germanCharRules.put("Oe", "Ö");
+		germanCharRules.put("AE", "Ä");
+		germanCharRules.put("UE", "Ü");
+		germanCharRules.put("OE", "Ö");
+		germanCharRules.put("SS", "ß");
+		germanCharRules.put("ss", "ß");
 	}
 }
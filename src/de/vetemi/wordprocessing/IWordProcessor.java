@@ -42,6 +42,17 @@ public interface IWordProcessor {
 	 */
 	public String cleanWordToTranslate(String wordToClean);
 
+	/**
+	 * Folds the word into its canonical form for umlaut insensitive lookups:
+	 * lower case with umlauts and sharp s spelled in ASCII, e.g. "Größe" and
+	 * "groesse" both become "groesse"
+	 * 
+	 * @param word
+	 *            the word to fold
+	 * @return the folded word
+	 */
+	public String foldWord(String word);
+
 	/**
 	 * Cleans the translated word
 	 * 
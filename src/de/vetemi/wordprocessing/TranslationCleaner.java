@@ -0,0 +1,117 @@
+package de.vetemi.wordprocessing;
+
+/**
+ * Hand written scanner which cleans a dict.cc translation in a single pass
+ * without regular expressions. Lower cases the text, removes annotation groups
+ * in brackets ("[Berechnung]", "{f}", "(to)", "<Abk.>"), also nested ones,
+ * removes the filler tokens "sth.", "sb." and "the" and collapses white
+ * spaces. Slashes separate words like white spaces. Every group is removed on
+ * its own, text between two groups is kept.
+ * <p>
+ * The cleaned text is collected in a buffer which is reused for the next
+ * text, so an instance must not be shared between threads.
+ *
+ * @author Valmir Etemi
+ */
+public class TranslationCleaner {
+
+	/**
+	 * Tokens which carry no meaning for the translation
+	 */
+	private final String[] FILLER_TOKENS = { "sth.", "sb.", "the" };
+
+	/**
+	 * Buffer for the cleaned text, grows with the longest text
+	 */
+	private char[] buffer = new char[64];
+
+	/**
+	 * Cleans the text. A group without closing bracket is removed up to the
+	 * end of the text
+	 *
+	 * @param text
+	 *            the text to clean
+	 * @return the cleaned text, the text itself if nothing was changed
+	 */
+	public String clean(String text) {
+		int length = text.length();
+		if (buffer.length < length) {
+			buffer = new char[Math.max(length, buffer.length * 2)];
+		}
+
+		int cleanedLength = 0;
+		int tokenStart = 0;
+		int depth = 0;
+		for (int i = 0; i < length; i++) {
+			char current = text.charAt(i);
+			if (isOpeningBracket(current)) {
+				if (depth++ == 0) {
+					cleanedLength = endToken(tokenStart, cleanedLength);
+					tokenStart = cleanedLength;
+				}
+			} else if (isClosingBracket(current)) {
+				if (depth > 0) {
+					depth--;
+				} else {
+					// stray closing bracket, keep it like any other character
+					buffer[cleanedLength++] = current;
+				}
+			} else if (depth > 0) {
+				// inside of a group
+				continue;
+			} else if (current == '/' || Character.isWhitespace(current)) {
+				cleanedLength = endToken(tokenStart, cleanedLength);
+				if (cleanedLength > 0 && buffer[cleanedLength - 1] != ' ') {
+					buffer[cleanedLength++] = ' ';
+				}
+				tokenStart = cleanedLength;
+			} else {
+				buffer[cleanedLength++] = Character.toLowerCase(current);
+			}
+		}
+		cleanedLength = endToken(tokenStart, cleanedLength);
+		if (cleanedLength > 0 && buffer[cleanedLength - 1] == ' ') {
+			cleanedLength--;
+		}
+
+		if (cleanedLength == length && equalsBuffer(text, 0)) {
+			return text;
+		}
+		return new String(buffer, 0, cleanedLength);
+	}
+
+	/**
+	 * Removes the last token of the buffer if it is a filler token
+	 *
+	 * @return the length of the buffer after removing
+	 */
+	private int endToken(int tokenStart, int cleanedLength) {
+		int tokenLength = cleanedLength - tokenStart;
+		for (String filler : FILLER_TOKENS) {
+			if (filler.length() == tokenLength && equalsBuffer(filler, tokenStart)) {
+				return tokenStart;
+			}
+		}
+		return cleanedLength;
+	}
+
+	/**
+	 * Compares the text with the buffer starting at the given offset
+	 */
+	private boolean equalsBuffer(String text, int offset) {
+		for (int i = 0; i < text.length(); i++) {
+			if (buffer[offset + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isOpeningBracket(char c) {
+		return c == '[' || c == '(' || c == '<' || c == '{';
+	}
+
+	private boolean isClosingBracket(char c) {
+		return c == ']' || c == ')' || c == '>' || c == '}';
+	}
+}
@@ -0,0 +1,152 @@
+package de.vetemi.wordprocessing;
+
+/**
+ * Hand written scanner which splits a code term into its word parts in a
+ * single pass. Stores only the offsets of the parts and detects the delimiter
+ * of the term in the same pass. Splits at underscores, hyphens, dots and
+ * white spaces, at camel and title case boundaries ("getXMLParser" -> "get",
+ * "XML", "Parser") and between digits and letters ("preis2Wert" -> "preis",
+ * "2", "Wert"). SCREAMING_SNAKE terms are split at the underscores only.
+ * <p>
+ * A tokenizer keeps the parts of the last term and is reused for the next one,
+ * so an instance must not be shared between threads.
+ *
+ * @author Valmir Etemi
+ */
+public class WordTokenizer {
+
+	/**
+	 * Start offsets (inclusive) of the parts
+	 */
+	private int[] partStarts = new int[8];
+
+	/**
+	 * End offsets (exclusive) of the parts
+	 */
+	private int[] partEnds = new int[8];
+
+	/**
+	 * Number of parts of the last term
+	 */
+	private int partCount;
+
+	/**
+	 * Delimiter of the last term
+	 */
+	private Delimiter delimiter;
+
+	/**
+	 * Splits the term into parts. The parts can be read afterwards by their
+	 * offsets
+	 *
+	 * @param word
+	 *            the term to split
+	 * @return the delimiter of the term
+	 */
+	public Delimiter tokenize(CharSequence word) {
+		partCount = 0;
+		boolean hasHyphen = false;
+		boolean hasUnderscore = false;
+		boolean hasDot = false;
+		boolean hasCaseBoundary = false;
+
+		int length = word.length();
+		int start = -1;
+		for (int i = 0; i < length; i++) {
+			char current = word.charAt(i);
+			if (current == '-' || current == '_' || current == '.' || Character.isWhitespace(current)) {
+				hasHyphen |= current == '-';
+				hasUnderscore |= current == '_';
+				hasDot |= current == '.';
+				if (start >= 0) {
+					addPart(start, i);
+					start = -1;
+				}
+				continue;
+			}
+			if (start < 0) {
+				start = i;
+				continue;
+			}
+
+			char previous = word.charAt(i - 1);
+			boolean boundary;
+			if (Character.isUpperCase(current)) {
+				// "camelCase", "2Name" or the last upper case letter of
+				// "XMLParser"
+				boundary = Character.isLowerCase(previous) || Character.isDigit(previous)
+						|| (Character.isUpperCase(previous) && i + 1 < length
+								&& Character.isLowerCase(word.charAt(i + 1)));
+				hasCaseBoundary |= boundary;
+			} else {
+				boundary = Character.isDigit(current) != Character.isDigit(previous);
+			}
+			if (boundary) {
+				addPart(start, i);
+				start = i;
+			}
+		}
+		if (start >= 0) {
+			addPart(start, length);
+		}
+
+		if (hasHyphen) {
+			delimiter = Delimiter.HYPHEN;
+		} else if (hasUnderscore) {
+			delimiter = Delimiter.UNDERSCORE;
+		} else if (hasDot) {
+			delimiter = Delimiter.DOT;
+		} else if (hasCaseBoundary) {
+			delimiter = Delimiter.CAMELTITLECASE;
+		} else {
+			delimiter = Delimiter.NODELIMITER;
+		}
+		return delimiter;
+	}
+
+	private void addPart(int start, int end) {
+		if (partCount == partStarts.length) {
+			int[] starts = new int[partCount * 2];
+			int[] ends = new int[partCount * 2];
+			System.arraycopy(partStarts, 0, starts, 0, partCount);
+			System.arraycopy(partEnds, 0, ends, 0, partCount);
+			partStarts = starts;
+			partEnds = ends;
+		}
+		partStarts[partCount] = start;
+		partEnds[partCount] = end;
+		partCount++;
+	}
+
+	/**
+	 * @return the number of parts of the last term
+	 */
+	public int getPartCount() {
+		return partCount;
+	}
+
+	/**
+	 * @param index
+	 *            index of the part
+	 * @return the start offset (inclusive) of the part
+	 */
+	public int getPartStart(int index) {
+		return partStarts[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the part
+	 * @return the end offset (exclusive) of the part
+	 */
+	public int getPartEnd(int index) {
+		return partEnds[index];
+	}
+
+	/**
+	 * @return the delimiter of the last term
+	 */
+	public Delimiter getDelimiter() {
+		return delimiter;
+	}
+}